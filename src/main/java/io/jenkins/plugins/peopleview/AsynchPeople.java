@@ -28,43 +28,58 @@ package io.jenkins.plugins.peopleview;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Functions;
 import hudson.model.Api;
-import hudson.model.Item;
-import hudson.model.Job;
 import hudson.model.ModelObject;
-import hudson.model.Run;
 import hudson.model.TopLevelItem;
 import hudson.model.User;
 import hudson.model.View;
-import hudson.scm.ChangeLogSet;
-import hudson.tasks.UserAvatarResolver;
-import hudson.util.RunList;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import jenkins.model.Jenkins;
-import jenkins.scm.RunWithSCM;
 import jenkins.util.ProgressiveRendering;
 import net.sf.json.JSON;
-import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.accmod.restrictions.suppressions.SuppressRestrictedWarnings;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.Stapler;
 import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
 import org.kohsuke.stapler.export.Exported;
 import org.kohsuke.stapler.export.ExportedBean;
+import org.kohsuke.stapler.verb.GET;
 
 public class AsynchPeople extends ProgressiveRendering {
 
     private final Collection<TopLevelItem> items;
     private final User unknown;
-    private final Map<User, UserInfo> users = new HashMap<>();
-    private final Set<User> modified = new HashSet<>();
+    /** Where people are delivered from; set once {@link #compute()} starts. */
+    private volatile PeopleStream stream;
+
+    /** The scan being waited for, if any. */
+    private volatile PeopleSnapshot snapshot;
+
+    /** See {@link People#getCoverage()}. */
+    private double coverage = 1;
+
+    /** See {@link PeopleSnapshot#getExceeded()}. */
+    private PeopleSnapshot.Budget exceeded;
+
+    /** Whether the scan was rejected by {@link ScanScheduler}. */
+    private volatile boolean rejected;
     private final String iconSize;
+    /** Avatars still being resolved; only accessed from {@link #compute()}. */
+    private final List<CompletableFuture<String>> pendingAvatars = new ArrayList<>();
     public final ModelObject parent;
 
     public AsynchPeople(Jenkins parent) {
@@ -91,105 +106,254 @@ public class AsynchPeople extends ProgressiveRendering {
 
     @Override
     protected void compute() throws Exception {
-        int itemCount = 0;
-        for (Item item : items) {
-            for (Job<?, ?> job : item.getAllJobs()) {
-                RunList<? extends Run<?, ?>> builds = job.getBuilds();
-                int buildCount = 0;
-                for (Run<?, ?> r : builds) {
-                    if (canceled()) {
-                        return;
-                    }
-                    if (!(r instanceof RunWithSCM)) {
-                        continue;
-                    }
+        // avatars depend on the icon size
+        stream = PeopleStream.open(PeopleSnapshot.key(parent) + '\u0000' + iconSize);
+        if (stream.isComplete()) {
+            return;
+        }
+        computePeople();
+        if (canceled()) {
+            ScanMetrics.requestCanceled();
+        } else if (!rejected) {
+            stream.complete(coverage, exceeded);
+        }
+    }
+
+    /**
+     * Runs on the executor of {@link ScanScheduler}, since this mostly waits for a scan.
+     */
+    @NonNull
+    @Override
+    protected ExecutorService executorService() {
+        return ScanScheduler.executor();
+    }
 
-                    RunWithSCM<?, ?> runWithSCM = (RunWithSCM<?, ?>) r;
-                    for (ChangeLogSet<? extends ChangeLogSet.Entry> c : runWithSCM.getChangeSets()) {
-                        for (ChangeLogSet.Entry entry : c) {
-                            User user = entry.getAuthor();
-                            UserInfo info = users.get(user);
-                            if (info == null) {
-                                UserInfo userInfo = new UserInfo(user, job, r.getTimestamp());
-                                userInfo.avatar = UserAvatarResolver.resolveOrNull(user, iconSize);
-                                synchronized (this) {
-                                    users.put(user, userInfo);
-                                    modified.add(user);
-                                }
-                            } else if (info.getLastChange().before(r.getTimestamp())) {
-                                synchronized (this) {
-                                    info.project = job;
-                                    info.lastChange = r.getTimestamp();
-                                    modified.add(user);
-                                }
-                            }
-                        }
+    private void computePeople() throws Exception {
+        PeopleSnapshot.Visibility visible = new PeopleSnapshot.Visibility();
+        PeopleSnapshot snapshot = PeopleSnapshot.attach(parent);
+        this.snapshot = snapshot;
+        try {
+            int retrieved = 0;
+            while (true) {
+                if (canceled()) {
+                    return;
+                }
+                boolean done = snapshot.isDone();
+                List<PeopleSnapshot.JobAuthors> results = snapshot.await(retrieved, 1000);
+                retrieved += results.size();
+                for (PeopleSnapshot.JobAuthors authors : results) {
+                    if (visible.test(authors.job)) {
+                        merge(authors);
                     }
-                    // TODO consider also adding the user of the UserCause when applicable
-                    buildCount++;
-                    // TODO this defeats lazy-loading. Should rather do a breadth-first search, as in
-                    // hudson.plugins.view.dashboard.builds.LatestBuilds
-                    // (though currently there is no quick implementation of RunMap.size() ~ idOnDisk.size(), which
-                    // would be needed for proper progress)
-                    progress((itemCount + 1.0 * buildCount / builds.size()) / (items.size() + 1));
+                }
+                progress(snapshot.progress() * items.size() / (items.size() + /* handling User.getAll */ 1));
+                if (done) {
+                    break;
                 }
             }
-            itemCount++;
-            progress(1.0 * itemCount / (items.size() + /* handling User.getAll */ 1));
+        } finally {
+            snapshot.detach();
+            this.snapshot = null;
+        }
+        if (snapshot.isRejected()) {
+            rejected = true;
+            return;
         }
+        Exception failure = snapshot.getFailure();
+        if (failure != null) {
+            throw failure;
+        }
+        coverage = snapshot.getCoverage();
+        exceeded = snapshot.getExceeded();
         if (unknown != null) {
             if (canceled()) {
                 return;
             }
-            for (User u : User.getAll()) { // TODO nice to have a method to iterate these lazily
+            long start = System.nanoTime();
+            boolean enumerated = UserDirectory.forEachUser(u -> {
                 if (canceled()) {
-                    return;
+                    return false;
                 }
-                if (u == unknown) {
-                    continue;
-                }
-                if (!users.containsKey(u)) {
-                    UserInfo userInfo = new UserInfo(u, null, null);
-                    userInfo.avatar = UserAvatarResolver.resolveOrNull(u, iconSize);
-                    synchronized (this) {
-                        users.put(u, userInfo);
-                        modified.add(u);
-                    }
+                if (!stream.contains(u)) {
+                    add(new UserInfo(u));
                 }
+                return true;
+            });
+            if (!enumerated) {
+                return;
+            }
+            ScanMetrics.usersEnumerated(start);
+        }
+        // the client stops polling once this returns
+        CompletableFuture<Void> avatars = CompletableFuture.allOf(pendingAvatars.toArray(new CompletableFuture<?>[0]));
+        while (!canceled()) {
+            try {
+                avatars.get(1, TimeUnit.SECONDS);
+                return;
+            } catch (TimeoutException e) {
+                // keep waiting
+            }
+        }
+    }
+
+    /**
+     * Merges people found by the {@link PeopleSnapshot} into the {@link #stream}, keeping the latest change and the
+     * latest triggered build of each user.
+     */
+    private void merge(PeopleSnapshot.JobAuthors authors) {
+        for (Map.Entry<User, Long> lastChange : authors.lastChanges.entrySet()) {
+            User user = lastChange.getKey();
+            long timestamp = lastChange.getValue();
+            if (stream.contains(user)) {
+                stream.update(user, authors.jobName, timestamp);
+            } else {
+                add(new UserInfo(user, authors.jobName, timestamp));
+            }
+        }
+        for (Map.Entry<User, Long> lastTrigger : authors.lastTriggers.entrySet()) {
+            User user = lastTrigger.getKey();
+            if (!stream.contains(user)) {
+                add(new UserInfo(user));
             }
+            stream.updateTrigger(user, authors.jobName, lastTrigger.getValue());
         }
     }
 
+    /**
+     * Adds a new entry, looking up its avatar.
+     * If the avatar is not known yet, it is resolved in the background and the entry sent again once it is.
+     */
+    private void add(UserInfo userInfo) {
+        CompletableFuture<String> avatar = AvatarCache.get(userInfo.getUser(), iconSize);
+        boolean resolved = avatar.isDone();
+        if (resolved) {
+            userInfo.avatar = avatar.getNow(null);
+        }
+        if (!stream.add(userInfo) || resolved) {
+            return;
+        }
+        pendingAvatars.add(avatar);
+        avatar.thenAccept(url -> {
+            if (url != null) {
+                stream.setAvatar(userInfo.getUser(), url);
+            }
+        });
+    }
+
+    /**
+     * Tells the client which entries are available; it then fetches them through {@link #doDelta}.
+     */
     @NonNull
     @Override
-    protected synchronized JSON data() {
-        JSONArray r = new JSONArray();
-        for (User u : modified) {
-            UserInfo i = users.get(u);
-            JSONObject entry = new JSONObject()
-                    .accumulate("id", u.getId())
-                    .accumulate("fullName", u.getFullName())
-                    .accumulate("url", u.getUrl() + "/")
-                    .accumulate(
-                            "avatar",
-                            i.avatar != null
-                                    ? i.avatar
-                                    : Stapler.getCurrentRequest().getContextPath() + Functions.getResourcePath()
-                                            + "/images/svgs/person.svg")
-                    .accumulate("timeSortKey", i.getTimeSortKey())
-                    .accumulate("lastChangeTimeString", i.getLastChangeTimeString());
-            Job<?, ?> p = i.getJob();
-            if (p != null) {
-                entry.accumulate("projectUrl", p.getUrl()).accumulate("projectFullDisplayName", p.getFullDisplayName());
+    protected JSON data() {
+        JSONObject r = new JSONObject();
+        PeopleStream stream = this.stream;
+        if (stream != null) {
+            r.accumulate("stream", stream.getId()).accumulate("seq", stream.getSeq());
+        }
+        PeopleSnapshot snapshot = this.snapshot;
+        if (snapshot != null) {
+            int position = snapshot.getQueuePosition();
+            if (position > 0) {
+                r.accumulate("queued", position);
             }
-            r.add(entry);
         }
-        modified.clear();
+        if (rejected) {
+            r.accumulate("rejected", true);
+        }
         return r;
     }
 
+    /**
+     * The remote API, answering with 304 when the client already has the current people, and otherwise computing
+     * them before anything is written, so that complete responses can be tagged.
+     *
+     * @see PeopleChanges
+     */
     public Api getApi() {
-        return new Api(new AsynchPeople.InnerPeople());
+        InnerPeople people = new InnerPeople();
+        StaplerRequest2 req = Stapler.getCurrentRequest2();
+        StaplerResponse2 rsp = Stapler.getCurrentResponse2();
+        if (req != null && rsp != null && req.getRestOfPath().matches("/(json|xml|python)/?")) {
+            String etag = PeopleChanges.etag(parent, req);
+            if (PeopleChanges.isNotModified(req, etag)) {
+                throw PeopleChanges.notModified(etag);
+            }
+            people.getUsers();
+            // tagged as of when the people were computed, which may be before a change that came in during the scan
+            PeopleChanges.tag(rsp, PeopleChanges.etag(parent, req, people.generation), people.partial);
+        }
+        return new Api(people);
+    }
+
+    /**
+     * Writes one page of people as JSON, optionally searched and filtered.
+     *
+     * @param cursor the {@code nextCursor} of the previous page, if any
+     * @param limit the maximum number of people on the page
+     * @param q a prefix of the user ID, full name, or a word of the full name
+     * @param since if positive, only people with a change at or after this timestamp
+     * @param before if positive, only people with a change before this timestamp
+     * @param sort {@code lastChange} (default), {@code id} or {@code fullName}
+     * @see PeoplePage
+     * @see PeopleSearch
+     */
+    @GET
+    @Restricted(NoExternalUse.class)
+    public void doPage(
+            StaplerRequest2 req,
+            StaplerResponse2 rsp,
+            @QueryParameter String cursor,
+            @QueryParameter int limit,
+            @QueryParameter String q,
+            @QueryParameter long since,
+            @QueryParameter long before,
+            @QueryParameter String sort)
+            throws IOException {
+        String etag = PeopleChanges.etag(parent, req);
+        if (PeopleChanges.isNotModified(req, etag)) {
+            throw PeopleChanges.notModified(etag);
+        }
+        PeoplePage.Sort order = PeoplePage.Sort.parse(sort);
+        PeoplePage page = new PeoplePage(cursor, limit, order);
+        // the people are collected and sorted once, then each page is sliced from them
+        PeopleSearch search = PeopleSearch.of(parent);
+        PeopleChanges.tag(rsp, PeopleChanges.etag(parent, req, search.getGeneration()), search.getCoverage() < 1);
+        page.write(search.find(q, since, before, order), search.getCoverage(), rsp);
+    }
+
+    /**
+     * Writes the entries of a stream changed since the specified sequence number as JSON.
+     *
+     * @param stream the ID of a stream of the current user, as sent by {@link #data()}
+     * @param since the last sequence number received, or 0 for all entries
+     * @see PeopleStream
+     */
+    @GET
+    @Restricted(NoExternalUse.class)
+    public void doDelta(StaplerResponse2 rsp, @QueryParameter String stream, @QueryParameter long since)
+            throws IOException {
+        PeopleStream s = PeopleStream.get(stream);
+        if (s == null) {
+            throw HttpResponses.notFound();
+        }
+        rsp.setContentType("application/json;charset=UTF-8");
+        PrintWriter w = rsp.getWriter();
+        s.writeDelta(since, w);
+        w.flush();
+    }
+
+    /**
+     * Writes statistics about people computations since startup as JSON.
+     *
+     * @see ScanMetrics
+     */
+    @GET
+    @Restricted(NoExternalUse.class)
+    public void doMetrics(StaplerResponse2 rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().print(ScanMetrics.toJSON());
     }
 
     /** JENKINS-16397 workaround */
@@ -197,14 +361,65 @@ public class AsynchPeople extends ProgressiveRendering {
     @ExportedBean
     public final class InnerPeople {
 
-        private People people;
+        private List<UserInfo> users;
 
+        /** Whether {@link #users} are incomplete, see {@link People#isPartial()}. */
+        private boolean partial;
+
+        /** See {@link People#getGeneration()}. */
+        private long generation;
+
+        /**
+         * All people, or those matching the {@code q}, {@code since} and {@code before} query parameters, sorted per
+         * the {@code sort} query parameter, as in {@link #doPage}.
+         */
         @Exported
         public synchronized List<UserInfo> getUsers() {
-            if (people == null) {
-                people = parent instanceof Jenkins ? new People((Jenkins) parent) : new People((View) parent);
+            if (users != null) {
+                return users;
+            }
+            StaplerRequest2 req = Stapler.getCurrentRequest2();
+            String sort = req != null ? req.getParameter("sort") : null;
+            if (req != null && isSearch(req)) {
+                PeopleSearch search = PeopleSearch.of(parent);
+                users = search.find(
+                        req.getParameter("q"),
+                        parseTimestamp(req.getParameter("since")),
+                        parseTimestamp(req.getParameter("before")),
+                        PeoplePage.Sort.parse(sort));
+                partial = search.getCoverage() < 1;
+                generation = search.getGeneration();
+                return users;
+            }
+            People people = parent instanceof Jenkins ? new People((Jenkins) parent) : new People((View) parent);
+            users = people.users;
+            partial = people.isPartial();
+            generation = people.getGeneration();
+            if (sort != null) {
+                users = new ArrayList<>(users);
+                users.sort(PeoplePage.Sort.parse(sort).order);
+            }
+            return users;
+        }
+
+        private static boolean isSearch(StaplerRequest2 req) {
+            for (String parameter : new String[] {"q", "since", "before"}) {
+                if (req.getParameter(parameter) != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static long parseTimestamp(String value) {
+            if (value == null || value.isEmpty()) {
+                return 0;
+            }
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw HttpResponses.error(400, "Invalid timestamp: " + value);
             }
-            return people.users;
         }
     }
 }
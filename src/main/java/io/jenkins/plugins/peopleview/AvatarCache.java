@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.User;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.tasks.UserAvatarResolver;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+
+/**
+ * Avatars resolved through {@link UserAvatarResolver}, shared by all people computations.
+ * <p>
+ * Some resolvers are slow (e.g. when backed by LDAP or a remote service), so avatars are resolved on a small
+ * dedicated thread pool instead of the thread scanning builds, and kept for a while in a bounded cache.
+ */
+final class AvatarCache {
+
+    private static final Logger LOGGER = Logger.getLogger(AvatarCache.class.getName());
+
+    private static final int SIZE = SystemProperties.getInteger(AvatarCache.class.getName() + ".size", 10000);
+
+    private static final int THREADS = SystemProperties.getInteger(AvatarCache.class.getName() + ".threads", 4);
+
+    private static final long TTL = TimeUnit.MINUTES.toMillis(
+            SystemProperties.getInteger(AvatarCache.class.getName() + ".ttlMinutes", 60));
+
+    private static final ExecutorService EXECUTOR =
+            Executors.newFixedThreadPool(THREADS, new NamingThreadFactory(new DaemonThreadFactory(), "AvatarCache"));
+
+    private static final class Avatar {
+        @CheckForNull
+        final String url;
+
+        final long resolved = System.currentTimeMillis();
+
+        Avatar(@CheckForNull String url) {
+            this.url = url;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - resolved > TTL;
+        }
+    }
+
+    /** Least recently used avatars, keyed by user ID and icon size. Guarded by itself. */
+    private static final Map<String, Avatar> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Avatar> eldest) {
+            return size() > SIZE;
+        }
+    };
+
+    /** Resolutions in progress, so that each avatar is only resolved once at a time. Guarded by {@link #CACHE}. */
+    private static final Map<String, CompletableFuture<String>> PENDING = new HashMap<>();
+
+    private AvatarCache() {}
+
+    private static String key(User user, String iconSize) {
+        return user.getId() + '\u0000' + iconSize;
+    }
+
+    /**
+     * Looks up the avatar of the specified user, resolving it in the background if it is not cached.
+     *
+     * @return a future completed with the avatar URL, or with {@code null} if the user has no avatar
+     */
+    @NonNull
+    static CompletableFuture<String> get(@NonNull User user, @NonNull String iconSize) {
+        String key = key(user, iconSize);
+        CompletableFuture<String> future;
+        synchronized (CACHE) {
+            Avatar avatar = CACHE.get(key);
+            if (avatar != null && !avatar.isExpired()) {
+                return CompletableFuture.completedFuture(avatar.url);
+            }
+            future = PENDING.get(key);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            PENDING.put(key, future);
+        }
+        CompletableFuture<String> result = future;
+        EXECUTOR.execute(() -> {
+            String url = null;
+            long start = System.nanoTime();
+            try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+                url = UserAvatarResolver.resolveOrNull(user, iconSize);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Failed to resolve avatar of " + user.getId(), e);
+            } finally {
+                ScanMetrics.avatarResolved(start);
+                synchronized (CACHE) {
+                    CACHE.put(key, new Avatar(url));
+                    PENDING.remove(key);
+                }
+                result.complete(url);
+            }
+        });
+        return result;
+    }
+}
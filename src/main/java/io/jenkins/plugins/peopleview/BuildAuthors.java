@@ -0,0 +1,296 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Cause;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.scm.ChangeLogSet;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.scm.RunWithSCM;
+
+/**
+ * The people active in a build, i.e. the authors of its changes and the users who triggered it, kept in a small binary
+ * file in the build directory.
+ * <p>
+ * The file is written when the build completes, so that people can later be found without loading the build or
+ * parsing its changelog. Builds without this file, e.g. from before this plugin was installed, are loaded once and
+ * the file is written then; both kinds of people are collected in that single load.
+ * <p>
+ * The format is a magic number, the build timestamp, then the authors and the triggerers, each as a number of users
+ * followed by the {@link hudson.model.User#getId()} of each user as UTF-8 prefixed with its length in bytes.
+ */
+final class BuildAuthors {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildAuthors.class.getName());
+
+    static final String FILE_NAME = "people-authors.bin";
+
+    /** {@code PPL2}. */
+    private static final int MAGIC = 0x50504c32;
+
+    final int number;
+
+    final long timestamp;
+
+    final List<String> authors;
+
+    /** IDs of the users who triggered the build. */
+    final List<String> triggerers;
+
+    BuildAuthors(int number, long timestamp, List<String> authors, List<String> triggerers) {
+        this.number = number;
+        this.timestamp = timestamp;
+        this.authors = authors;
+        this.triggerers = triggerers;
+    }
+
+    /**
+     * Collects the authors of changes in and the triggerers of the specified build.
+     */
+    @NonNull
+    static BuildAuthors of(@NonNull Run<?, ?> run) {
+        return new BuildAuthors(run.getNumber(), run.getTimeInMillis(), collect(run), collectTriggerers(run));
+    }
+
+    /**
+     * Collects the IDs of the authors of changes in the specified build from its changelog.
+     */
+    @NonNull
+    static List<String> collect(@NonNull Run<?, ?> run) {
+        List<String> authors = new ArrayList<>();
+        if (run instanceof RunWithSCM) {
+            for (ChangeLogSet<? extends ChangeLogSet.Entry> c : ((RunWithSCM<?, ?>) run).getChangeSets()) {
+                for (ChangeLogSet.Entry entry : c) {
+                    String id = entry.getAuthor().getId();
+                    if (!authors.contains(id)) {
+                        authors.add(id);
+                    }
+                }
+            }
+        }
+        return authors;
+    }
+
+    /**
+     * Collects the IDs of the users who triggered the specified build, from its causes.
+     * The deprecated {@code Cause.UserCause} of very old builds is ignored, since it only records a display name.
+     */
+    @NonNull
+    static List<String> collectTriggerers(@NonNull Run<?, ?> run) {
+        List<String> triggerers = new ArrayList<>();
+        for (Cause cause : run.getCauses()) {
+            String id = cause instanceof Cause.UserIdCause ? ((Cause.UserIdCause) cause).getUserId() : null;
+            if (id != null && !triggerers.contains(id)) {
+                triggerers.add(id);
+            }
+        }
+        return triggerers;
+    }
+
+    /**
+     * Writes the author file of the specified build.
+     */
+    static void write(@NonNull Run<?, ?> run, @NonNull BuildAuthors build) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeLong(build.timestamp);
+            writeIds(out, build.authors);
+            writeIds(out, build.triggerers);
+        } catch (IOException e) {
+            throw new AssertionError(e); // in memory
+        }
+        Path file = new File(run.getRootDir(), FILE_NAME).toPath();
+        Path tmp = file.resolveSibling(FILE_NAME + ".tmp");
+        try {
+            Files.write(tmp, bytes.toByteArray());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to write authors of " + run, e);
+        }
+    }
+
+    private static void writeIds(DataOutputStream out, Collection<String> ids) throws IOException {
+        out.writeInt(ids.size());
+        for (String id : ids) {
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads the author file in the specified build directory.
+     * These files are a few bytes long, so they are read whole rather than memory-mapped, which would use up one of
+     * the limited number of mappings of the process for each build.
+     *
+     * @return {@code null} if there is no such file, or it cannot be read, or it is in an older format
+     */
+    @CheckForNull
+    static BuildAuthors read(int number, @NonNull File buildDir) {
+        Path file = new File(buildDir, FILE_NAME).toPath();
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to read " + file, e);
+            return null;
+        }
+        try {
+            if (buffer.getInt() != MAGIC) {
+                return null;
+            }
+            long timestamp = buffer.getLong();
+            List<String> authors = readIds(buffer);
+            return new BuildAuthors(number, timestamp, authors, readIds(buffer));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            LOGGER.log(Level.FINE, "Corrupt " + file, e);
+            return null;
+        }
+    }
+
+    private static List<String> readIds(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] id = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(id);
+            ids.add(new String(id, StandardCharsets.UTF_8));
+        }
+        return ids;
+    }
+
+    /**
+     * Looks up the people active in a build, loading the build and writing its author file if it has none.
+     *
+     * @return {@code null} if there is no such build
+     */
+    @CheckForNull
+    static BuildAuthors get(@NonNull Job<?, ?> job, int number) {
+        return get(job, number, true);
+    }
+
+    /**
+     * Looks up the people active in a completed build, loading the build and writing its author file if it has none.
+     *
+     * @return {@code null} if there is no such build, or it is still running
+     */
+    @CheckForNull
+    static BuildAuthors getCompleted(@NonNull Job<?, ?> job, int number) {
+        return get(job, number, false);
+    }
+
+    @CheckForNull
+    private static BuildAuthors get(@NonNull Job<?, ?> job, int number, boolean running) {
+        BuildAuthors authors = read(number, new File(job.getBuildDir(), Integer.toString(number)));
+        if (authors != null) {
+            return authors;
+        }
+        Run<?, ?> run = job.getBuildByNumber(number);
+        if (run == null) {
+            return null;
+        }
+        if (run.isBuilding()) {
+            return running ? of(run) : null;
+        }
+        authors = of(run);
+        write(run, authors);
+        return authors;
+    }
+
+    /**
+     * Lists the numbers of the builds of a job from its build directory, without loading them, in no particular order.
+     */
+    @NonNull
+    static List<Integer> numbers(@NonNull Job<?, ?> job) {
+        List<Integer> numbers = new ArrayList<>();
+        String[] names = job.getBuildDir().list();
+        if (names == null) {
+            return numbers;
+        }
+        for (String name : names) {
+            try {
+                numbers.add(Integer.parseInt(name));
+            } catch (NumberFormatException e) {
+                // e.g. lastSuccessfulBuild
+            }
+        }
+        return numbers;
+    }
+
+    /**
+     * Lists the numbers of the builds of a job, newest first.
+     */
+    @NonNull
+    static List<Integer> numbersNewestFirst(@NonNull Job<?, ?> job) {
+        List<Integer> numbers = numbers(job);
+        numbers.sort(Collections.reverseOrder());
+        return numbers;
+    }
+
+    /**
+     * Looks up the people active in all builds of a job, from their author files where available.
+     * Builds are visited newest first, and none older than the first one before {@code since} is looked at, let alone
+     * loaded.
+     *
+     * @param since timestamp of the oldest build to consider, 0 for all builds
+     * @return newest first
+     */
+    @NonNull
+    static List<BuildAuthors> getAll(@NonNull Job<?, ?> job, long since) {
+        List<BuildAuthors> all = new ArrayList<>();
+        for (int number : numbersNewestFirst(job)) {
+            BuildAuthors authors = get(job, number);
+            if (authors == null) {
+                continue;
+            }
+            if (authors.timestamp < since) {
+                break;
+            }
+            all.add(authors);
+        }
+        return all;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.User;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * People active in each job, computed once from its builds and shared by the scans of all views containing the job.
+ * <p>
+ * Each partial has a watermark, the number of the last build folded into it, so that refreshing it only reads the
+ * builds numbered above. Partials cover the builds within the activity horizon they were computed for, and those older
+ * builds already folded, so that they can be filtered by the same or any later horizon: a user's latest activity is
+ * within the horizon exactly when some activity of theirs is. Builds beyond the horizon are never read.
+ * A build completing lowers the watermark below it, since it may have been folded while running; a build being
+ * deleted discards the partial.
+ * <p>
+ * The jobs of an item, e.g. a folder, are also kept once all of them have a partial, along with a generation
+ * number, so that scans of unchanged subtrees neither recurse through them nor look at their builds.
+ * Any build started, completed or deleted, or item created, deleted or moved, bumps the generation of all items
+ * containing it.
+ */
+final class JobPartials {
+
+    /** Partials by job; jobs deleted or reloaded are garbage collected. */
+    private static final Map<Job<?, ?>, Partial> PARTIALS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Subtrees by item, discarded when any item is deleted or moved since they may list its jobs.
+     * Jobs are weakly referenced, since they reference the item, which would otherwise never be collected.
+     */
+    private static final Map<Item, Subtree> SUBTREES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** Generation of the latest change within each item. */
+    private static final Map<Item, Long> CHANGED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    private JobPartials() {}
+
+    /**
+     * The people active in all builds of one job up to some build.
+     */
+    static final class Partial {
+        /** Number of the last build folded into this partial. */
+        final int watermark;
+
+        /** Timestamp of the oldest build certainly folded into this partial, 0 if all are. */
+        final long since;
+
+        final Map<User, Long> lastChanges;
+        final Map<User, Long> lastTriggers;
+
+        Partial(int watermark, long since, Map<User, Long> lastChanges, Map<User, Long> lastTriggers) {
+            this.watermark = watermark;
+            this.since = since;
+            this.lastChanges = lastChanges;
+            this.lastTriggers = lastTriggers;
+        }
+
+        /**
+         * @param since timestamp of the oldest activity to consider, 0 for all
+         * @return whether all builds from {@code since} were folded, up to the watermark
+         */
+        boolean covers(long since) {
+            return this.since <= since;
+        }
+
+        /**
+         * @return whether no build was started since the last one folded
+         */
+        boolean isCurrent(@NonNull Job<?, ?> job) {
+            return watermark >= job.getNextBuildNumber() - 1;
+        }
+
+        /**
+         * @param since timestamp of the oldest activity to consider, 0 for all
+         */
+        @NonNull
+        PeopleSnapshot.JobAuthors toJobAuthors(@NonNull Job<?, ?> job, long since) {
+            return new PeopleSnapshot.JobAuthors(job, filter(lastChanges, since), filter(lastTriggers, since));
+        }
+
+        private static Map<User, Long> filter(Map<User, Long> timestamps, long since) {
+            if (since <= 0) {
+                return timestamps;
+            }
+            Map<User, Long> filtered = new HashMap<>();
+            for (Map.Entry<User, Long> timestamp : timestamps.entrySet()) {
+                if (timestamp.getValue() >= since) {
+                    filtered.put(timestamp.getKey(), timestamp.getValue());
+                }
+            }
+            return filtered;
+        }
+    }
+
+    private static final class Subtree {
+        final long generation;
+        final List<WeakReference<Job<?, ?>>> jobs;
+
+        Subtree(long generation, List<Job<?, ?>> jobs) {
+            this.generation = generation;
+            this.jobs = new ArrayList<>(jobs.size());
+            for (Job<?, ?> job : jobs) {
+                this.jobs.add(new WeakReference<>(job));
+            }
+        }
+
+        /**
+         * @return {@code null} if any job was garbage collected
+         */
+        @CheckForNull
+        List<Job<?, ?>> getJobs() {
+            List<Job<?, ?>> jobs = new ArrayList<>(this.jobs.size());
+            for (WeakReference<Job<?, ?>> reference : this.jobs) {
+                Job<?, ?> job = reference.get();
+                if (job == null) {
+                    return null;
+                }
+                jobs.add(job);
+            }
+            return jobs;
+        }
+    }
+
+    /**
+     * @return the current generation, to be passed to {@link #put} and {@link #putSubtree} by scans starting now
+     */
+    static long generation() {
+        return GENERATION.get();
+    }
+
+    /**
+     * Looks up the partial of a job, which may not include its latest builds.
+     */
+    @CheckForNull
+    static Partial get(@NonNull Job<?, ?> job) {
+        return PARTIALS.get(job);
+    }
+
+    /**
+     * Keeps the partial of a job, unless the job changed since the specified generation, in which case the partial
+     * may miss that change.
+     */
+    static void put(@NonNull Job<?, ?> job, @NonNull Partial partial, long generation) {
+        synchronized (CHANGED) {
+            if (CHANGED.getOrDefault(job, 0L) <= generation) {
+                PARTIALS.put(job, partial);
+            }
+        }
+    }
+
+    /**
+     * Looks up the jobs of an item, if nothing changed within it since they were kept.
+     */
+    @CheckForNull
+    static List<Job<?, ?>> getSubtree(@NonNull Item item) {
+        synchronized (CHANGED) {
+            Subtree subtree = SUBTREES.get(item);
+            return subtree != null && CHANGED.getOrDefault(item, 0L) <= subtree.generation ? subtree.getJobs() : null;
+        }
+    }
+
+    /**
+     * Keeps the jobs of an item, whose partials are all current as of the specified generation.
+     */
+    static void putSubtree(@NonNull Item item, @NonNull List<Job<?, ?>> jobs, long generation) {
+        SUBTREES.put(item, new Subtree(generation, jobs));
+    }
+
+    /**
+     * Bumps the generation of an item and all items containing it.
+     */
+    static void changed(@NonNull Item item) {
+        PeopleChanges.changed();
+        synchronized (CHANGED) {
+            long generation = GENERATION.incrementAndGet();
+            for (Object i = item; i instanceof Item; i = ((Item) i).getParent()) {
+                CHANGED.put((Item) i, generation);
+            }
+        }
+    }
+
+    /**
+     * Notes that a build started, so that subtrees containing its job get scanned.
+     */
+    static void started(@NonNull Run<?, ?> run) {
+        changed(run.getParent());
+    }
+
+    /**
+     * Notes that a build completed, so that it gets folded again in case it was folded while running.
+     */
+    static void completed(@NonNull Run<?, ?> run) {
+        Job<?, ?> job = run.getParent();
+        int number = run.getNumber();
+        PARTIALS.computeIfPresent(
+                job,
+                (k, partial) -> partial.watermark < number
+                        ? partial
+                        : new Partial(number - 1, partial.since, partial.lastChanges, partial.lastTriggers));
+        changed(job);
+    }
+
+    /**
+     * Notes that a build was deleted, discarding the partial of its job.
+     */
+    static void deleted(@NonNull Run<?, ?> run) {
+        Job<?, ?> job = run.getParent();
+        PARTIALS.remove(job);
+        changed(job);
+    }
+
+    /**
+     * Notes that an item was deleted or moved.
+     */
+    static void removed(@NonNull Item item) {
+        // subtrees of other items may reference jobs within this item
+        SUBTREES.clear();
+        changed(item);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import hudson.model.Job;
+import hudson.model.Run;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Iterates the builds of several jobs newest first, breadth-first across jobs, similar to
+ * {@code hudson.plugins.view.dashboard.builds.LatestBuilds}.
+ * <p>
+ * Only the next build of each job is loaded, using {@link Run#getPreviousBuild()}, so builds older than the ones
+ * actually visited are never loaded from disk, and a job is dropped as soon as its next build is older than the
+ * activity horizon.
+ * Since builds are visited newest first overall, the first change found for a user is their last change.
+ */
+final class NewestBuilds implements Iterator<Run<?, ?>> {
+
+    private final PriorityQueue<Run<?, ?>> queue =
+            new PriorityQueue<>(Comparator.<Run<?, ?>>comparingLong(Run::getTimeInMillis).reversed());
+    private final long since;
+    private final long now = System.currentTimeMillis();
+    private final int jobs;
+    private int exhausted;
+    private long current = now;
+
+    /**
+     * @param since timestamp of the oldest build to visit, 0 to visit all builds
+     */
+    NewestBuilds(Collection<? extends Job<?, ?>> jobs, long since) {
+        this.since = since;
+        this.jobs = jobs.size();
+        for (Job<?, ?> job : jobs) {
+            offer(job.getLastBuild());
+        }
+    }
+
+    private void offer(Run<?, ?> run) {
+        if (run != null && run.getTimeInMillis() >= since) {
+            queue.add(run);
+        } else {
+            exhausted++;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !queue.isEmpty();
+    }
+
+    @Override
+    public Run<?, ?> next() {
+        Run<?, ?> run = queue.poll();
+        if (run == null) {
+            throw new NoSuchElementException();
+        }
+        current = run.getTimeInMillis();
+        offer(run.getPreviousBuild());
+        return run;
+    }
+
+    /**
+     * Estimates the share of builds already visited, as the share of exhausted jobs or, with an activity horizon, of
+     * the time span covered so far, whichever is larger.
+     */
+    double progress() {
+        double progress = jobs == 0 ? 1 : 1.0 * exhausted / jobs;
+        if (since > 0 && now > since) {
+            progress = Math.max(progress, Math.min(1, 1.0 * (now - current) / (now - since)));
+        }
+        return progress;
+    }
+}
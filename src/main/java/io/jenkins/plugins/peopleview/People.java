@@ -52,47 +52,93 @@ public class People {
 
     public final ModelObject parent;
 
+    /** Share of the builds covered, when the scan exceeded a budget of {@link PeopleViewConfiguration}. */
+    private double coverage = 1;
+
+    /** {@link PeopleChanges#generation()} when the scan {@link #users} come from started. */
+    private long generation;
+
     public People(Jenkins parent) {
         this.parent = parent;
-        // for Hudson, really load all users
-        Map<User, UserInfo> users = getUserInfo(parent.getItems());
-        User unknown = User.getUnknown();
-        for (User u : User.getAll()) {
-            if (u == unknown) continue; // skip the special 'unknown' user
-            if (!users.containsKey(u)) users.put(u, new UserInfo(u, null, null));
-        }
-        this.users = toList(users);
+        this.users = toList(getUserInfo(parent));
     }
 
     public People(View parent) {
         this.parent = parent;
-        this.users = toList(getUserInfo(parent.getItems()));
+        this.users = toList(collect(parent));
     }
 
-    private Map<User, UserInfo> getUserInfo(Collection<? extends Item> items) {
-        Map<User, UserInfo> users = new HashMap<>();
-        for (Item item : items) {
-            for (Job<?, ?> job : item.getAllJobs()) {
-                RunList<? extends Run<?, ?>> runs = job.getBuilds();
-                for (Run<?, ?> r : runs) {
-                    if (r instanceof RunWithSCM) {
-                        RunWithSCM<?, ?> runWithSCM = (RunWithSCM<?, ?>) r;
+    /**
+     * Whether {@link #users} is incomplete, because computing it exceeded a budget.
+     */
+    @Exported
+    public boolean isPartial() {
+        return coverage < 1;
+    }
 
-                        for (ChangeLogSet<? extends ChangeLogSet.Entry> c : runWithSCM.getChangeSets()) {
-                            for (ChangeLogSet.Entry entry : c) {
-                                User user = entry.getAuthor();
+    /**
+     * The share of jobs or builds covered by {@link #users}, between 0 and 1.
+     */
+    @Exported
+    public double getCoverage() {
+        return coverage;
+    }
 
-                                UserInfo info = users.get(user);
-                                if (info == null) users.put(user, new UserInfo(user, job, r.getTimestamp()));
-                                else if (info.getLastChange().before(r.getTimestamp())) {
-                                    info.project = job;
-                                    info.lastChange = r.getTimestamp();
-                                }
-                            }
-                        }
-                    }
+    /**
+     * The generation of people {@link #users} are current as of, which may be older than the current one when they
+     * come from a scan that was in progress, so that responses are tagged accordingly.
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    private Map<User, UserInfo> getUserInfo(Jenkins parent) {
+        // for Hudson, really load all users
+        Map<User, UserInfo> users = collect(parent);
+        long start = System.nanoTime();
+        UserDirectory.forEachUser(u -> {
+            users.computeIfAbsent(u, UserInfo::new);
+            return true;
+        });
+        ScanMetrics.usersEnumerated(start);
+        return users;
+    }
+
+    /**
+     * Collects the people of a scope visible to the current user, noting their {@link #coverage} and
+     * {@link #generation}.
+     */
+    private Map<User, UserInfo> collect(ModelObject scope) {
+        PeopleSnapshot.Visibility visible = new PeopleSnapshot.Visibility();
+        Map<User, UserInfo> users = new HashMap<>();
+        PeopleSnapshot snapshot = PeopleSnapshot.attach(scope);
+        try {
+            for (PeopleSnapshot.JobAuthors authors : snapshot.awaitAll()) {
+                if (!visible.test(authors.job)) continue;
+                for (Map.Entry<User, Long> lastChange : authors.lastChanges.entrySet()) {
+                    User user = lastChange.getKey();
+                    long timestamp = lastChange.getValue();
+
+                    UserInfo info = users.get(user);
+                    if (info == null) users.put(user, new UserInfo(user, authors.jobName, timestamp));
+                    else info.update(authors.jobName, timestamp);
                 }
+                for (Map.Entry<User, Long> lastTrigger : authors.lastTriggers.entrySet()) {
+                    users.computeIfAbsent(lastTrigger.getKey(), UserInfo::new)
+                            .updateTrigger(authors.jobName, lastTrigger.getValue());
+                }
+            }
+            if (snapshot.isRejected()) {
+                throw ScanScheduler.busy();
             }
+            coverage = snapshot.getCoverage();
+            generation = snapshot.getGeneration();
+        } catch (InterruptedException e) {
+            // whatever was collected is incomplete, so that the response is not tagged as if it were current
+            coverage = 0;
+            Thread.currentThread().interrupt();
+        } finally {
+            snapshot.detach();
         }
         return users;
     }
@@ -108,10 +154,42 @@ public class People {
     }
 
     /**
-     * @deprecated Potentially very expensive call; do not use from Jelly views.
+     * Whether any job contained in the specified items has a build with a change by a known author.
+     * This only looks up {@link PeopleIndex}, once per item rather than per job, so it is cheap enough to be called
+     * from Jelly views.
+     * While the index is being built, this returns {@code true}.
+     */
+    public static boolean hasAuthors(Collection<? extends Item> items) {
+        PeopleIndex index = PeopleIndex.get();
+        if (!index.isReady()) {
+            return true;
+        }
+        for (Item item : items) {
+            if (index.hasAuthors(item)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether any job has a build with a change by a known author, in constant time.
+     * While {@link PeopleIndex} is being built, this returns {@code true}.
+     */
+    public static boolean hasAuthors() {
+        PeopleIndex index = PeopleIndex.get();
+        return !index.isReady() || index.hasAuthors();
+    }
+
+    /**
+     * @deprecated Potentially very expensive call when {@link PeopleIndex} is being built; use
+     * {@link #hasAuthors(Collection)}.
      */
     @Deprecated
     public static boolean isApplicable(Collection<? extends Item> items) {
+        if (PeopleIndex.get().isReady()) {
+            return hasAuthors(items);
+        }
         for (Item item : items) {
             for (Job job : item.getAllJobs()) {
                 RunList<? extends Run<?, ?>> runs = job.getBuilds();
@@ -0,0 +1,160 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.XmlFile;
+import hudson.model.ModelObject;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+
+/**
+ * A generation counter of the data people are computed from, for conditional requests.
+ * <p>
+ * The generation is bumped by any build started, completed or deleted, item created, deleted or moved (see
+ * {@link JobPartials#changed}), change to the {@link PeopleIndex}, and configuration saved, e.g. of users, views,
+ * security or {@link PeopleViewConfiguration}. Builds saving their records are not changes by themselves, since
+ * builds starting, completing and being deleted are already noted. Responses are tagged with the generation the
+ * people were computed at, the day, since the activity horizon and weekly activity move with time, the requesting
+ * user, since people are filtered by permissions, the scope and the query string. A request whose
+ * {@code If-None-Match} header matches the tag at the current generation is answered with 304 without computing or
+ * serializing anything.
+ */
+final class PeopleChanges {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    /** When {@link #GENERATION} was last bumped, for {@code Last-Modified}. */
+    private static volatile long lastChanged = System.currentTimeMillis();
+
+    private PeopleChanges() {}
+
+    /**
+     * Notes that people may have changed.
+     */
+    static void changed() {
+        GENERATION.incrementAndGet();
+        lastChanged = System.currentTimeMillis();
+    }
+
+    static long generation() {
+        return GENERATION.get();
+    }
+
+    /**
+     * @return the entity tag of the response to the specified request at the current generation
+     */
+    @NonNull
+    static String etag(@NonNull ModelObject scope, @NonNull StaplerRequest2 req) {
+        return etag(scope, req, generation());
+    }
+
+    /**
+     * @param generation the generation the response is current as of, see {@link People#getGeneration()}
+     * @return the entity tag of the response to the specified request at the specified generation
+     */
+    @NonNull
+    static String etag(@NonNull ModelObject scope, @NonNull StaplerRequest2 req, long generation) {
+        long now = System.currentTimeMillis();
+        String query = req.getQueryString();
+        return "\""
+                + Util.getDigestOf(generation
+                        + ":" + Math.floorDiv(now, DAY)
+                        + ":" + Jenkins.getAuthentication2().getName()
+                        + ":" + PeopleSnapshot.key(scope)
+                        + ":" + req.getRestOfPath()
+                        + "?" + (query != null ? query : ""))
+                + "\"";
+    }
+
+    /**
+     * @return whether the client already has the response with the specified entity tag
+     */
+    static boolean isNotModified(@NonNull StaplerRequest2 req, @NonNull String etag) {
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag) || candidate.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The response to a request for which {@link #isNotModified} holds.
+     */
+    @NonNull
+    static HttpResponses.HttpResponseException notModified(@NonNull String etag) {
+        return new HttpResponses.HttpResponseException() {
+            @Override
+            public void generateResponse(StaplerRequest2 req, StaplerResponse2 rsp, Object node) {
+                rsp.setHeader("ETag", etag);
+                rsp.setStatus(StaplerResponse2.SC_NOT_MODIFIED);
+            }
+        };
+    }
+
+    /**
+     * Tags a complete response, so that it can be revalidated.
+     * Partial responses are not tagged, since completing them does not change the generation.
+     */
+    static void tag(@NonNull StaplerResponse2 rsp, @NonNull String etag, boolean partial) {
+        if (partial) {
+            rsp.setHeader("Cache-Control", "no-cache");
+            return;
+        }
+        rsp.setHeader("ETag", etag);
+        long today = Math.floorDiv(System.currentTimeMillis(), DAY) * DAY;
+        rsp.setDateHeader("Last-Modified", Math.max(lastChanged, today));
+        rsp.setHeader("Cache-Control", "private, no-cache");
+    }
+
+    @Extension
+    public static final class SaveableListenerImpl extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (!(o instanceof Run)) {
+                changed();
+            }
+        }
+    }
+}
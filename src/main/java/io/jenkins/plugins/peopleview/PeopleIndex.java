@@ -0,0 +1,928 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.TaskListener;
+import hudson.model.User;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Plugin-wide index of commit authors and build triggerers, maintained incrementally as builds complete.
+ * <p>
+ * For every job, the index records the latest build number it has seen, and for every author of a change in any of
+ * the job's builds, the timestamp of the most recent such build; likewise for every user who triggered a build.
+ * This allows {@link People} and {@link AsynchPeople} to answer from memory instead of loading every build and parsing
+ * every changelog.
+ * For every author, the index also keeps a {@link UserActivity} aggregate of their changes over time and across jobs.
+ * The index is persisted in {@code JENKINS_HOME} in a compact binary format, so that it is usable within milliseconds
+ * of startup, and only rebuilt from scratch when it is missing. Builds it does not know of yet, e.g. completed after it
+ * was last saved, are then caught up with by a low priority, throttled {@link #warmUp()}.
+ */
+@Restricted(NoExternalUse.class)
+@Extension
+public class PeopleIndex implements Saveable {
+
+    private static final Logger LOGGER = Logger.getLogger(PeopleIndex.class.getName());
+
+    /** Delay before persisting the index after a change, so that bursts of completed builds are written once. */
+    private static final long SAVE_DELAY_SECONDS = 10;
+
+    /** {@code PPI1}, the magic number of the binary index file. */
+    private static final int MAGIC = 0x50504931;
+
+    /**
+     * Maximum number of builds read per second by {@link #warmUp()}; 0 for no limit.
+     */
+    private static final int WARM_UP_BUILDS_PER_SECOND =
+            SystemProperties.getInteger(PeopleIndex.class.getName() + ".warmUpBuildsPerSecond", 50);
+
+    /** Current value of {@link #format}. */
+    private static final int FORMAT = 1;
+
+    /**
+     * Per-job records, keyed by {@link Job#getFullName()}.
+     */
+    private final Map<String, JobRecord> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Whether {@link #jobs} covers all builds that existed when the index was last rebuilt.
+     */
+    private volatile boolean complete;
+
+    /**
+     * Whether every build has a {@link BuildAuthors} file, so that builds never need to be loaded to find authors.
+     */
+    private volatile boolean backfilled;
+
+    /**
+     * Version of what {@link #jobs} records; the index is rebuilt when older than {@link #FORMAT}.
+     */
+    private volatile int format;
+
+    private transient volatile boolean rebuilding;
+
+    /**
+     * Number of {@link #jobs} with at least one author.
+     */
+    private final transient AtomicInteger jobsWithAuthors = new AtomicInteger();
+
+    /**
+     * Number of {@link #jobs} with at least one author, keyed by the full name of each such job and of each item
+     * containing one; items without any are absent.
+     */
+    private final transient Map<String, Integer> itemsWithAuthors = new ConcurrentHashMap<>();
+
+    private final transient AtomicBoolean saveScheduled = new AtomicBoolean();
+
+    /** Serializes {@link #rebuild()} and {@link #backfill()}, which must not hold the monitor {@link #save()} needs. */
+    private final transient Object rebuildLock = new Object();
+
+    /** The thread of {@link #inBackground}, interrupted on shutdown. */
+    @CheckForNull
+    private transient volatile Thread backgroundThread;
+
+    /**
+     * Activity of each author, keyed by {@link User#getId()}.
+     * Only builds completed or found by {@link #rebuild()} are counted; deleting builds does not change it.
+     */
+    private final Map<String, UserActivity> activity = new ConcurrentHashMap<>();
+
+    /**
+     * While {@link #rebuild()} runs, the numbers of the builds of each job counted in {@link #activity} since it was
+     * cleared, so that a build completed meanwhile is counted once, whether the rebuild or {@link #record} gets to it
+     * first; {@code null} otherwise.
+     */
+    @CheckForNull
+    private transient volatile Map<String, BitSet> counted;
+
+    /**
+     * Held to count builds in {@link #activity}, and exclusively to clear it, so that no build is counted between
+     * {@link #rebuild()} clearing it and starting to track {@link #counted}.
+     */
+    private final transient ReadWriteLock activityLock = new ReentrantReadWriteLock();
+
+    /**
+     * Authors of changes in a single job's builds.
+     */
+    static final class JobRecord {
+        /**
+         * Highest build number folded into {@link #authors}.
+         */
+        int lastBuild;
+
+        /**
+         * {@link User#getId()} to the timestamp of the latest build with a change by this user.
+         */
+        final Map<String, Long> authors = new HashMap<>();
+
+        /**
+         * {@link User#getId()} to the timestamp of the latest build triggered by this user.
+         */
+        final Map<String, Long> triggerers = new HashMap<>();
+
+        /**
+         * Whether {@link #authors} is not empty, readable without locking.
+         */
+        transient volatile boolean hasAuthors;
+
+        /**
+         * How {@link #record(int, long, Collection, Collection)} changed a record.
+         */
+        enum Change {
+            NONE,
+            CHANGED,
+            /** Changed, and has authors for the first time. */
+            FIRST_AUTHORS
+        }
+
+        /**
+         * Records the people active in one build.
+         *
+         * @param number the build number
+         * @param timestamp the build timestamp
+         * @param authors IDs of the authors of changes in the build
+         * @param triggerers IDs of the users who triggered the build
+         * @return how the record changed
+         */
+        synchronized Change record(
+                int number, long timestamp, Collection<String> authors, Collection<String> triggerers) {
+            boolean changed = false;
+            if (number > lastBuild) {
+                lastBuild = number;
+                changed = true;
+            }
+            changed |= record(this.authors, authors, timestamp);
+            changed |= record(this.triggerers, triggerers, timestamp);
+            boolean hadAuthors = hasAuthors;
+            hasAuthors = !this.authors.isEmpty();
+            if (!hadAuthors && hasAuthors) {
+                return Change.FIRST_AUTHORS;
+            }
+            return changed ? Change.CHANGED : Change.NONE;
+        }
+
+        private static boolean record(Map<String, Long> latest, Collection<String> ids, long timestamp) {
+            boolean changed = false;
+            for (String id : ids) {
+                Long previous = latest.get(id);
+                if (previous == null || previous < timestamp) {
+                    latest.put(id, timestamp);
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        /**
+         * Folds another record in, keeping the latest timestamp of each user, so that builds recorded concurrently
+         * are kept.
+         *
+         * @param other a record not shared with other threads
+         * @return how this record changed
+         */
+        synchronized Change merge(JobRecord other) {
+            boolean changed = false;
+            if (other.lastBuild > lastBuild) {
+                lastBuild = other.lastBuild;
+                changed = true;
+            }
+            changed |= merge(authors, other.authors);
+            changed |= merge(triggerers, other.triggerers);
+            boolean hadAuthors = hasAuthors;
+            hasAuthors = !authors.isEmpty();
+            if (!hadAuthors && hasAuthors) {
+                return Change.FIRST_AUTHORS;
+            }
+            return changed ? Change.CHANGED : Change.NONE;
+        }
+
+        private static boolean merge(Map<String, Long> latest, Map<String, Long> other) {
+            boolean changed = false;
+            for (Map.Entry<String, Long> timestamp : other.entrySet()) {
+                Long previous = latest.get(timestamp.getKey());
+                if (previous == null || previous < timestamp.getValue()) {
+                    latest.put(timestamp.getKey(), timestamp.getValue());
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        /**
+         * Whether the latest timestamp of some user may come from the specified build, so that forgetting it needs
+         * other builds to be looked at.
+         */
+        synchronized boolean isLatest(BuildAuthors build) {
+            return isLatest(authors, build.authors, build.timestamp)
+                    || isLatest(triggerers, build.triggerers, build.timestamp);
+        }
+
+        private static boolean isLatest(Map<String, Long> latest, Collection<String> ids, long timestamp) {
+            for (String id : ids) {
+                Long previous = latest.get(id);
+                if (previous != null && previous == timestamp) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Forgets a deleted build. Users whose latest timestamp came from it get the one from the remaining builds,
+         * unless a newer build was recorded meanwhile.
+         *
+         * @param remaining the latest timestamps of these users in the remaining builds, see {@link #isLatest}
+         * @return whether the record no longer has authors
+         */
+        synchronized boolean forget(BuildAuthors build, JobRecord remaining) {
+            forget(authors, build.authors, build.timestamp, remaining.authors);
+            forget(triggerers, build.triggerers, build.timestamp, remaining.triggerers);
+            boolean hadAuthors = hasAuthors;
+            hasAuthors = !authors.isEmpty();
+            return hadAuthors && !hasAuthors;
+        }
+
+        private static void forget(
+                Map<String, Long> latest, Collection<String> ids, long timestamp, Map<String, Long> remaining) {
+            for (String id : ids) {
+                Long previous = latest.get(id);
+                if (previous == null || previous != timestamp) {
+                    continue;
+                }
+                Long replacement = remaining.get(id);
+                if (replacement == null) {
+                    latest.remove(id);
+                } else {
+                    latest.put(id, replacement);
+                }
+            }
+        }
+
+        synchronized Map<String, Long> getAuthors() {
+            return new HashMap<>(authors);
+        }
+
+        synchronized Map<String, Long> getTriggerers() {
+            return new HashMap<>(triggerers);
+        }
+
+        synchronized int getLastBuild() {
+            return lastBuild;
+        }
+
+        synchronized void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(lastBuild);
+            writeTimestamps(out, authors);
+            writeTimestamps(out, triggerers);
+        }
+
+        static JobRecord readFrom(DataInputStream in) throws IOException {
+            JobRecord record = new JobRecord();
+            record.lastBuild = in.readInt();
+            readTimestamps(in, record.authors);
+            readTimestamps(in, record.triggerers);
+            record.hasAuthors = !record.authors.isEmpty();
+            return record;
+        }
+
+        private static void writeTimestamps(DataOutputStream out, Map<String, Long> timestamps) throws IOException {
+            out.writeInt(timestamps.size());
+            for (Map.Entry<String, Long> timestamp : timestamps.entrySet()) {
+                out.writeUTF(timestamp.getKey());
+                out.writeLong(timestamp.getValue());
+            }
+        }
+
+        private static void readTimestamps(DataInputStream in, Map<String, Long> timestamps) throws IOException {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                timestamps.put(in.readUTF(), in.readLong());
+            }
+        }
+    }
+
+    public static PeopleIndex get() {
+        return ExtensionList.lookupSingleton(PeopleIndex.class);
+    }
+
+    /**
+     * Whether the index can be used to answer queries, i.e. it has been fully built at least once.
+     */
+    public boolean isReady() {
+        return complete && format >= FORMAT && !rebuilding;
+    }
+
+    /**
+     * Whether any build of the specified job, or of any job in the specified folder, has a change with a known author,
+     * in constant time.
+     * Only meaningful when {@link #isReady()}.
+     */
+    public boolean hasAuthors(@NonNull Item item) {
+        return itemsWithAuthors.containsKey(item.getFullName());
+    }
+
+    /**
+     * Whether any build of any job has a change with a known author.
+     * Only meaningful when {@link #isReady()}.
+     */
+    public boolean hasAuthors() {
+        return jobsWithAuthors.get() > 0;
+    }
+
+    private void remove(String name) {
+        JobRecord record = jobs.remove(name);
+        if (record != null && record.hasAuthors) {
+            countAuthors(name, -1);
+        }
+    }
+
+    /**
+     * Updates {@link #jobsWithAuthors} and {@link #itemsWithAuthors} for a job gaining or losing its first author.
+     *
+     * @param delta 1 or -1
+     */
+    private void countAuthors(String jobName, int delta) {
+        jobsWithAuthors.addAndGet(delta);
+        for (int end = jobName.length(); end > 0; end = jobName.lastIndexOf('/', end - 1)) {
+            itemsWithAuthors.compute(jobName.substring(0, end), (k, count) -> {
+                int updated = (count == null ? 0 : count) + delta;
+                return updated > 0 ? updated : null;
+            });
+        }
+    }
+
+    private void clearAuthorCounts() {
+        jobsWithAuthors.set(0);
+        itemsWithAuthors.clear();
+    }
+
+    /**
+     * Looks up the authors of changes in the specified job.
+     *
+     * @param since timestamp of the oldest build to consider, 0 for all builds
+     * @return map of users to the timestamp of their latest change; empty if the job has no known authors
+     */
+    @NonNull
+    Map<User, Long> getLastChanges(@NonNull Job<?, ?> job, long since) {
+        JobRecord record = jobs.get(job.getFullName());
+        return record == null ? Map.of() : toUsers(record.getAuthors(), since, true);
+    }
+
+    /**
+     * Looks up the users who triggered builds of the specified job.
+     *
+     * @param since timestamp of the oldest build to consider, 0 for all builds
+     * @return map of users to the timestamp of the latest build they triggered; empty if none is known
+     */
+    @NonNull
+    Map<User, Long> getLastTriggers(@NonNull Job<?, ?> job, long since) {
+        JobRecord record = jobs.get(job.getFullName());
+        return record == null ? Map.of() : toUsers(record.getTriggerers(), since, false);
+    }
+
+    /**
+     * @param create whether to create unknown users, as {@link hudson.scm.ChangeLogSet.Entry#getAuthor()} does for
+     *     authors; triggerers are dropped unless they exist
+     */
+    private static Map<User, Long> toUsers(Map<String, Long> ids, long since, boolean create) {
+        Map<User, Long> users = new HashMap<>();
+        for (Map.Entry<String, Long> id : ids.entrySet()) {
+            if (id.getValue() < since) {
+                continue;
+            }
+            User user = User.getById(id.getKey(), create);
+            if (user != null) {
+                users.put(user, id.getValue());
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Looks up the activity of a user, in constant time.
+     *
+     * @return {@code null} if the user never authored a change in a build known to the index
+     */
+    @CheckForNull
+    UserActivity getActivity(@NonNull String userId) {
+        return activity.get(userId);
+    }
+
+    /**
+     * Whether all builds have a {@link BuildAuthors} file.
+     */
+    boolean isBackfilled() {
+        return backfilled;
+    }
+
+    /**
+     * Folds the changelog and causes of the specified build into the index, and writes its {@link BuildAuthors} file.
+     */
+    void record(@NonNull Run<?, ?> run) {
+        BuildAuthors build = BuildAuthors.of(run);
+        BuildAuthors.write(run, build);
+        record(run.getParent(), build.number, build.timestamp, build.authors, build.triggerers);
+    }
+
+    /**
+     * Records the people active in one build of the specified job.
+     *
+     * @see JobRecord#record(int, long, Collection, Collection)
+     */
+    void record(
+            @NonNull Job<?, ?> job,
+            int number,
+            long timestamp,
+            @NonNull Collection<String> authors,
+            @NonNull Collection<String> triggerers) {
+        recordActivity(job.getFullName(), number, timestamp, authors);
+        JobRecord record = jobs.computeIfAbsent(job.getFullName(), k -> new JobRecord());
+        changed(job.getFullName(), record.record(number, timestamp, authors, triggerers));
+    }
+
+    private void changed(String jobName, JobRecord.Change change) {
+        if (change == JobRecord.Change.FIRST_AUTHORS) {
+            countAuthors(jobName, 1);
+        }
+        if (change != JobRecord.Change.NONE) {
+            scheduleSave();
+        }
+    }
+
+    /**
+     * Counts a build in {@link #activity}, unless {@link #rebuild()} already did.
+     */
+    private void recordActivity(String jobName, int number, long timestamp, Collection<String> authors) {
+        activityLock.readLock().lock();
+        try {
+            Map<String, BitSet> counted = this.counted;
+            if (counted == null) {
+                recordActivity(jobName, timestamp, authors);
+                return;
+            }
+            counted.compute(jobName, (k, numbers) -> {
+                if (numbers == null) {
+                    numbers = new BitSet();
+                }
+                if (!numbers.get(number)) {
+                    numbers.set(number);
+                    recordActivity(jobName, timestamp, authors);
+                }
+                return numbers;
+            });
+        } finally {
+            activityLock.readLock().unlock();
+        }
+    }
+
+    private void recordActivity(String jobName, long timestamp, Collection<String> authors) {
+        for (String author : authors) {
+            activity.computeIfAbsent(author, k -> new UserActivity()).record(jobName, timestamp);
+        }
+    }
+
+    /**
+     * Re-indexes all builds of the specified job, e.g. to write missing author files.
+     */
+    void reindex(@NonNull Job<?, ?> job) {
+        reindex(job, false);
+    }
+
+    /**
+     * Folds all builds of a job into its record, rather than replacing it, so that builds recorded meanwhile are kept.
+     *
+     * @param withActivity whether to count the builds in {@link #activity}, as tracked by {@link #counted}
+     */
+    private void reindex(@NonNull Job<?, ?> job, boolean withActivity) {
+        JobRecord found = new JobRecord();
+        for (BuildAuthors build : BuildAuthors.getAll(job, 0)) {
+            found.record(build.number, build.timestamp, build.authors, build.triggerers);
+            if (withActivity) {
+                recordActivity(job.getFullName(), build.number, build.timestamp, build.authors);
+            }
+        }
+        changed(job.getFullName(), jobs.computeIfAbsent(job.getFullName(), k -> new JobRecord()).merge(found));
+    }
+
+    /**
+     * Forgets a deleted build of the specified job. Other builds are only read when the deleted one has the latest
+     * timestamp of some user in the record, and then only until these users are found.
+     */
+    void forget(@NonNull Job<?, ?> job, @NonNull BuildAuthors deleted) {
+        JobRecord record = jobs.get(job.getFullName());
+        if (record == null || !record.isLatest(deleted)) {
+            return;
+        }
+        Set<String> authors = new HashSet<>(deleted.authors);
+        Set<String> triggerers = new HashSet<>(deleted.triggerers);
+        JobRecord remaining = new JobRecord();
+        for (int number : BuildAuthors.numbersNewestFirst(job)) {
+            if (authors.isEmpty() && triggerers.isEmpty()) {
+                break;
+            }
+            BuildAuthors build = number == deleted.number ? null : BuildAuthors.get(job, number);
+            if (build == null) {
+                continue;
+            }
+            remaining.record(
+                    build.number,
+                    build.timestamp,
+                    build.authors.stream().filter(authors::remove).collect(Collectors.toList()),
+                    build.triggerers.stream().filter(triggerers::remove).collect(Collectors.toList()));
+        }
+        if (record.forget(deleted, remaining)) {
+            countAuthors(job.getFullName(), -1);
+        }
+        scheduleSave();
+    }
+
+    /**
+     * Discards the index and recomputes it from all builds of all jobs.
+     * Until this is done, {@link #isReady()} returns {@code false} and callers fall back to scanning builds.
+     * The index may be saved meanwhile, as incomplete. If the current thread is interrupted, this stops early, leaving
+     * the index incomplete, so that it is rebuilt on next startup.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            rebuilding = true;
+            try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+                complete = false;
+                jobs.clear();
+                clearAuthorCounts();
+                activityLock.writeLock().lock();
+                try {
+                    counted = new ConcurrentHashMap<>();
+                    activity.clear();
+                } finally {
+                    activityLock.writeLock().unlock();
+                }
+                for (Job<?, ?> job : Jenkins.get().allItems(Job.class)) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        LOGGER.fine("People index rebuild interrupted");
+                        return;
+                    }
+                    reindex(job, true);
+                }
+                backfilled = true;
+                format = FORMAT;
+                complete = true;
+            } finally {
+                counted = null;
+                rebuilding = false;
+            }
+        }
+        LOGGER.log(Level.FINE, "Rebuilt people index for {0} jobs", jobs.size());
+        scheduleSave();
+    }
+
+    /**
+     * Writes the {@link BuildAuthors} file of every build lacking one, e.g. after upgrading from a version of this
+     * plugin without them. The index remains usable meanwhile.
+     * If the current thread is interrupted, this stops early, and is resumed on next startup.
+     */
+    void backfill() {
+        synchronized (rebuildLock) {
+            try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+                for (Job<?, ?> job : Jenkins.get().allItems(Job.class)) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        LOGGER.fine("People index backfill interrupted");
+                        return;
+                    }
+                    reindex(job);
+                }
+            }
+            backfilled = true;
+        }
+        LOGGER.log(Level.FINE, "Wrote missing build authors for {0} jobs", jobs.size());
+        scheduleSave();
+    }
+
+    /**
+     * Starts catching up with builds newer than the latest one recorded for their job, e.g. completed while Jenkins
+     * was not running or since the index was last saved. The index remains usable meanwhile.
+     * This runs in a low priority thread reading at most {@link #WARM_UP_BUILDS_PER_SECOND} builds per second, so
+     * that it does not compete with startup for disk and processors.
+     */
+    void warmUp() {
+        inBackground("People index warm-up", Thread.MIN_PRIORITY, () -> {
+            try {
+                catchUp();
+            } catch (InterruptedException e) {
+                LOGGER.log(Level.FINE, "People index warm-up interrupted", e);
+            }
+        });
+    }
+
+    /**
+     * Runs a long task on a dedicated thread rather than on {@link Timer}, whose threads are shared with the rest of
+     * Jenkins, and which is interrupted on {@link #shutdown()}.
+     */
+    private void inBackground(String name, int priority, Runnable task) {
+        Thread thread = new Thread(
+                () -> {
+                    try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+                        task.run();
+                    }
+                },
+                name);
+        thread.setDaemon(true);
+        thread.setPriority(priority);
+        backgroundThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Records completed builds newer than the latest one recorded for their job.
+     *
+     * @return the number of builds recorded
+     */
+    int catchUp() throws InterruptedException {
+        long pause = WARM_UP_BUILDS_PER_SECOND > 0 ? TimeUnit.SECONDS.toMillis(1) / WARM_UP_BUILDS_PER_SECOND : 0;
+        int recorded = 0;
+        for (Job<?, ?> job : Jenkins.get().allItems(Job.class)) {
+            JobRecord record = jobs.get(job.getFullName());
+            int lastBuild = record == null ? 0 : record.getLastBuild();
+            List<Integer> numbers = BuildAuthors.numbers(job);
+            numbers.removeIf(number -> number <= lastBuild);
+            Collections.sort(numbers);
+            for (int number : numbers) {
+                BuildAuthors build = BuildAuthors.getCompleted(job, number);
+                if (build != null) {
+                    record(job, build.number, build.timestamp, build.authors, build.triggerers);
+                    recorded++;
+                }
+                Thread.sleep(pause);
+            }
+        }
+        LOGGER.log(Level.FINE, "People index caught up with {0} builds", recorded);
+        return recorded;
+    }
+
+    private void scheduleSave() {
+        // every change to the index is saved
+        PeopleChanges.changed();
+        if (saveScheduled.compareAndSet(false, true)) {
+            Timer.get().schedule(this::saveQuietly, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save people index", e);
+        }
+    }
+
+    @Override
+    public synchronized void save() throws IOException {
+        saveScheduled.set(false);
+        Path file = getFile().toPath();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            writeTo(out);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(format);
+        out.writeBoolean(complete);
+        out.writeBoolean(backfilled);
+        List<Map.Entry<String, JobRecord>> records = new ArrayList<>(jobs.entrySet());
+        out.writeInt(records.size());
+        for (Map.Entry<String, JobRecord> record : records) {
+            out.writeUTF(record.getKey());
+            record.getValue().writeTo(out);
+        }
+        List<Map.Entry<String, UserActivity>> activities = new ArrayList<>(activity.entrySet());
+        out.writeInt(activities.size());
+        for (Map.Entry<String, UserActivity> activity : activities) {
+            out.writeUTF(activity.getKey());
+            activity.getValue().writeTo(out);
+        }
+    }
+
+    private void readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a people index");
+        }
+        format = in.readInt();
+        complete = in.readBoolean();
+        backfilled = in.readBoolean();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            jobs.put(in.readUTF(), JobRecord.readFrom(in));
+        }
+        count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            activity.put(in.readUTF(), UserActivity.readFrom(in));
+        }
+    }
+
+    /**
+     * Loads the index from its binary file, if any.
+     */
+    synchronized void load() {
+        File file = getFile();
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            readFrom(in);
+            clearAuthorCounts();
+            jobs.forEach((name, record) -> {
+                if (record.hasAuthors) {
+                    countAuthors(name, 1);
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to load people index, it will be rebuilt", e);
+            jobs.clear();
+            activity.clear();
+            clearAuthorCounts();
+            complete = false;
+            backfilled = false;
+            format = 0;
+        }
+    }
+
+    private static File getFile() {
+        return new File(Jenkins.get().getRootDir(), PeopleIndex.class.getName() + ".bin");
+    }
+
+    @Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+    public static void init() {
+        PeopleIndex index = get();
+        index.load();
+        if (!index.complete || index.format < FORMAT) {
+            index.inBackground("People index rebuild", Thread.NORM_PRIORITY, index::rebuild);
+        } else if (!index.backfilled) {
+            index.inBackground("People index backfill", Thread.MIN_PRIORITY, index::backfill);
+        } else {
+            index.warmUp();
+        }
+    }
+
+    @Terminator
+    public static void shutdown() throws IOException {
+        PeopleSearch.clear();
+        // rather than waiting for it; what it did so far is saved below
+        Thread background = get().backgroundThread;
+        if (background != null) {
+            background.interrupt();
+        }
+        get().save();
+    }
+
+    @Extension
+    public static final class RunListenerImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onStarted(Run<?, ?> run, TaskListener listener) {
+            JobPartials.started(run);
+        }
+
+        @Override
+        public void onCompleted(Run<?, ?> run, @NonNull TaskListener listener) {
+            JobPartials.completed(run);
+            get().record(run);
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            Job<?, ?> job = run.getParent();
+            JobPartials.deleted(run);
+            // read now, while the build directory still exists
+            BuildAuthors read = BuildAuthors.read(run.getNumber(), run.getRootDir());
+            BuildAuthors deleted = read != null ? read : BuildAuthors.of(run);
+            Timer.get().submit(() -> {
+                try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+                    get().forget(job, deleted);
+                }
+            });
+        }
+    }
+
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+        @Override
+        public void onCreated(Item item) {
+            JobPartials.changed(item);
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            JobPartials.removed(item);
+            PeopleIndex index = get();
+            String prefix = item.getFullName() + "/";
+            boolean changed = false;
+            for (String name : index.jobs.keySet()) {
+                if (name.equals(item.getFullName()) || name.startsWith(prefix)) {
+                    index.remove(name);
+                    changed = true;
+                }
+            }
+            if (changed) {
+                index.scheduleSave();
+            }
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            JobPartials.removed(item);
+            PeopleIndex index = get();
+            String prefix = oldFullName + "/";
+            boolean changed = false;
+            for (String name : index.jobs.keySet()) {
+                if (name.equals(oldFullName) || name.startsWith(prefix)) {
+                    JobRecord record = index.jobs.remove(name);
+                    if (record != null) {
+                        String newName = newFullName + name.substring(oldFullName.length());
+                        index.jobs.put(newName, record);
+                        if (record.hasAuthors) {
+                            index.countAuthors(name, -1);
+                            index.countAuthors(newName, 1);
+                        }
+                        changed = true;
+                    }
+                }
+            }
+            if (changed) {
+                for (UserActivity activity : index.activity.values()) {
+                    activity.rename(oldFullName, newFullName);
+                }
+            }
+            if (changed) {
+                index.scheduleSave();
+            }
+        }
+    }
+}
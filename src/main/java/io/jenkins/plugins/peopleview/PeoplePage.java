@@ -0,0 +1,275 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.model.Job;
+import hudson.model.User;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import net.sf.json.JSONObject;
+import net.sf.json.util.JSONUtils;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerResponse2;
+
+/**
+ * One page of people, sorted by last change (most recent first) and then by user ID, or by another {@link Sort},
+ * written as JSON.
+ * <p>
+ * Pages are sliced from entries already sorted in their order, e.g. by {@link PeopleSearch#sorted}, the cursor being
+ * found by binary search, and they are written to the response one by one, so that answering does not depend on the
+ * total number of people.
+ * The cursor for the next page identifies the last entry of this one, so pages remain consistent when entries are
+ * added in between.
+ */
+final class PeoplePage {
+
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    /**
+     * Orders of entries in pages, each ending with the user ID so that it is total.
+     */
+    enum Sort {
+        /** Most recent last change first, consistent with {@link UserInfo#compareTo(UserInfo)}. */
+        LAST_CHANGE("lastChange", Comparator.comparingLong(UserInfo::ordinal).reversed()) {
+            @Override
+            String key(UserInfo info) {
+                return Long.toString(info.ordinal());
+            }
+
+            @Override
+            Object parseKey(String key) {
+                return Long.parseLong(key);
+            }
+
+            @Override
+            int compareToKey(UserInfo info, Object key) {
+                return Long.compare((Long) key, info.ordinal());
+            }
+        },
+        ID("id", (a, b) -> 0) {
+            @Override
+            String key(UserInfo info) {
+                return "";
+            }
+
+            @Override
+            int compareToKey(UserInfo info, Object key) {
+                return 0;
+            }
+        },
+        FULL_NAME("fullName", Comparator.comparing(Sort::fullName)) {
+            @Override
+            String key(UserInfo info) {
+                return fullName(info);
+            }
+
+            @Override
+            int compareToKey(UserInfo info, Object key) {
+                return fullName(info).compareTo((String) key);
+            }
+        };
+
+        /** Value of the {@code sort} query parameter. */
+        private final String parameter;
+
+        final Comparator<UserInfo> order;
+
+        Sort(String parameter, Comparator<UserInfo> byKey) {
+            this.parameter = parameter;
+            this.order = byKey.thenComparing(info -> info.getUser().getId());
+        }
+
+        private static String fullName(UserInfo info) {
+            return info.getUser().getFullName().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * @return what this order compares entries by, apart from the user ID
+         */
+        abstract String key(UserInfo info);
+
+        /**
+         * Parses a {@link #key(UserInfo)} from a cursor.
+         */
+        Object parseKey(String key) {
+            return key;
+        }
+
+        /**
+         * Compares an entry to a {@link #parseKey(String) parsed key}, in this order.
+         */
+        abstract int compareToKey(UserInfo info, Object key);
+
+        /**
+         * @param parameter the value of the {@code sort} query parameter, if any
+         */
+        static Sort parse(@CheckForNull String parameter) {
+            if (parameter == null || parameter.isEmpty()) {
+                return LAST_CHANGE;
+            }
+            for (Sort sort : values()) {
+                if (sort.parameter.equals(parameter)) {
+                    return sort;
+                }
+            }
+            throw HttpResponses.error(400, "Invalid sort: " + parameter);
+        }
+    }
+
+    private final Sort sort;
+
+    @CheckForNull
+    private final Object cursorKey;
+
+    @CheckForNull
+    private final String cursorId;
+
+    private final int limit;
+
+    /**
+     * @param cursor the {@code nextCursor} of the previous page, or {@code null} for the first page
+     * @param limit maximum number of entries, 0 for the default
+     * @param sort the order of entries, which must be the same for all pages
+     */
+    PeoplePage(@CheckForNull String cursor, int limit, Sort sort) {
+        this.limit = limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        this.sort = sort;
+        if (cursor == null || cursor.isEmpty()) {
+            cursorKey = null;
+            cursorId = null;
+            return;
+        }
+        try {
+            String[] decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\u0000", 3);
+            if (!decoded[0].equals(sort.name())) {
+                throw new IllegalArgumentException("Cursor for another order");
+            }
+            cursorKey = sort.parseKey(decoded[1]);
+            cursorId = decoded[2];
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw HttpResponses.error(400, "Invalid cursor: " + cursor);
+        }
+    }
+
+    private String cursor(UserInfo info) {
+        String value = sort.name() + '\u0000' + sort.key(info) + '\u0000' + info.getUser().getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean isAfterCursor(UserInfo info) {
+        if (cursorId == null) {
+            return true;
+        }
+        int c = sort.compareToKey(info, cursorKey);
+        return c > 0 || c == 0 && info.getUser().getId().compareTo(cursorId) > 0;
+    }
+
+    /**
+     * Selects the entries of this page among the specified ones.
+     *
+     * @param users all entries, in the order of this page
+     * @return up to {@code limit + 1} entries, the last one only indicating that there is a next page
+     */
+    List<UserInfo> select(List<UserInfo> users) {
+        // the first entry after the cursor, all following ones being after it too
+        int low = 0;
+        int high = users.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (isAfterCursor(users.get(mid))) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return users.subList(low, Math.min(users.size(), low + limit + 1));
+    }
+
+    /**
+     * Writes this page of the specified entries as JSON.
+     *
+     * @param users all entries, in the order of this page
+     * @param coverage see {@link People#getCoverage()}
+     */
+    void write(List<UserInfo> users, double coverage, StaplerResponse2 rsp) throws IOException {
+        rsp.setContentType("application/json;charset=UTF-8");
+        PrintWriter w = rsp.getWriter();
+        write(users, coverage, w);
+        w.flush();
+    }
+
+    /**
+     * Writes this page of the specified entries as JSON.
+     * If they are {@link People#isPartial() partial}, the page says so, with their coverage.
+     */
+    void write(List<UserInfo> users, double coverage, Writer w) throws IOException {
+        List<UserInfo> page = select(users);
+        String nextCursor = page.size() > limit ? cursor(page.get(limit - 1)) : null;
+        w.write("{\"users\":[");
+        for (int i = 0; i < Math.min(limit, page.size()); i++) {
+            if (i > 0) {
+                w.write(',');
+            }
+            w.write(toJSON(page.get(i)).toString());
+        }
+        w.write(']');
+        if (nextCursor != null) {
+            w.write(",\"nextCursor\":");
+            w.write(JSONUtils.quote(nextCursor));
+        }
+        if (coverage < 1) {
+            w.write(",\"partial\":true,\"coverage\":");
+            w.write(Double.toString(coverage));
+        }
+        w.write('}');
+    }
+
+    private static JSONObject toJSON(UserInfo info) {
+        User user = info.getUser();
+        JSONObject entry = new JSONObject()
+                .accumulate("id", user.getId())
+                .accumulate("fullName", user.getFullName())
+                .accumulate("url", user.getUrl() + "/");
+        if (info.getLastChangeMillis() != UserInfo.NO_CHANGE) {
+            entry.accumulate("lastChange", info.getLastChangeMillis());
+        }
+        Job<?, ?> p = info.getJob();
+        if (p != null) {
+            entry.accumulate("projectUrl", p.getUrl()).accumulate("projectFullName", p.getFullName());
+        }
+        if (info.getLastTriggerMillis() != UserInfo.NO_CHANGE) {
+            entry.accumulate("lastTrigger", info.getLastTriggerMillis());
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.ModelObject;
+import hudson.model.View;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+/**
+ * Searchable people of a scope, as visible to one user.
+ * <p>
+ * User IDs, full names and each word of full names are kept lowercase in a sorted array, so that the people matching
+ * a prefix are found by binary search. The people are also kept sorted in each order pages of them are requested in,
+ * so that a page is sliced from them rather than selected among all people.
+ * The people of each user and scope are collected once and searched for
+ * {@link PeopleViewConfiguration#getSnapshotTtlSeconds()}, unless {@link PeopleChanges} notes a change meanwhile.
+ * At most {@link #MAX_SEARCHES} searches are kept, the oldest being discarded first, so that many users searching
+ * does not hold the people of each of them.
+ */
+final class PeopleSearch {
+
+    /** Maximum number of searches kept. */
+    private static final int MAX_SEARCHES =
+            SystemProperties.getInteger(PeopleSearch.class.getName() + ".maxSearches", 20);
+
+    /** Searches by user and scope. */
+    private static final Map<String, PeopleSearch> CACHE = new ConcurrentHashMap<>();
+
+    private final UserInfo[] users;
+
+    /** Lowercase search keys, sorted. */
+    private final String[] keys;
+
+    /** Position in {@link #users} of the user each of {@link #keys} belongs to. */
+    private final int[] owners;
+
+    /** {@link #users} in each order requested so far. Guarded by itself. */
+    private final Map<PeoplePage.Sort, List<UserInfo>> sorted = new EnumMap<>(PeoplePage.Sort.class);
+
+    private final double coverage;
+
+    private final long created = System.currentTimeMillis();
+
+    /** {@link People#getGeneration()}. */
+    private final long generation;
+
+    /**
+     * @param coverage see {@link People#getCoverage()}
+     * @param generation see {@link People#getGeneration()}
+     */
+    PeopleSearch(Collection<UserInfo> users, double coverage, long generation) {
+        this.users = users.toArray(new UserInfo[0]);
+        this.coverage = coverage;
+        this.generation = generation;
+        List<Key> keys = new ArrayList<>();
+        for (int i = 0; i < this.users.length; i++) {
+            String id = this.users[i].getUser().getId().toLowerCase(Locale.ROOT);
+            String fullName = this.users[i].getUser().getFullName().toLowerCase(Locale.ROOT);
+            keys.add(new Key(id, i));
+            if (!fullName.equals(id)) {
+                keys.add(new Key(fullName, i));
+            }
+            String[] words = fullName.split("\\s+");
+            for (int w = 1; w < words.length; w++) {
+                keys.add(new Key(words[w], i));
+            }
+        }
+        Key[] sorted = keys.toArray(new Key[0]);
+        Arrays.sort(sorted);
+        this.keys = new String[sorted.length];
+        this.owners = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            this.keys[i] = sorted[i].key;
+            this.owners[i] = sorted[i].owner;
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+        final String key;
+        final int owner;
+
+        Key(String key, int owner) {
+            this.key = key;
+            this.owner = owner;
+        }
+
+        @Override
+        public int compareTo(Key o) {
+            return key.compareTo(o.key);
+        }
+    }
+
+    /**
+     * Returns the people of the specified scope visible to the current user, collecting them if needed.
+     */
+    @NonNull
+    static PeopleSearch of(@NonNull ModelObject scope) {
+        long ttl = TimeUnit.SECONDS.toMillis(PeopleViewConfiguration.get().getSnapshotTtlSeconds());
+        long now = System.currentTimeMillis();
+        long generation = PeopleChanges.generation();
+        CACHE.values().removeIf(search -> now - search.created > ttl || search.generation < generation);
+        String key = Jenkins.getAuthentication2().getName() + '\u0000' + PeopleSnapshot.key(scope);
+        PeopleSearch search = CACHE.get(key);
+        if (search == null) {
+            People people = scope instanceof View ? new People((View) scope) : new People((Jenkins) scope);
+            search = new PeopleSearch(people.users, people.getCoverage(), people.getGeneration());
+            if (Thread.currentThread().isInterrupted()) {
+                // collecting was cut short, see People#getCoverage()
+                return search;
+            }
+            CACHE.put(key, search);
+            while (CACHE.size() > MAX_SEARCHES) {
+                CACHE.entrySet().stream()
+                        .min(Comparator.comparingLong(e -> e.getValue().created))
+                        .ifPresent(oldest -> CACHE.remove(oldest.getKey(), oldest.getValue()));
+            }
+        }
+        return search;
+    }
+
+    /**
+     * @see People#getCoverage()
+     */
+    double getCoverage() {
+        return coverage;
+    }
+
+    /**
+     * @see People#getGeneration()
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Discards all searches, e.g. when Jenkins stops.
+     */
+    static void clear() {
+        CACHE.clear();
+    }
+
+    /**
+     * @return all people, in the specified order, which is only sorted the first time it is requested
+     */
+    @NonNull
+    List<UserInfo> sorted(@NonNull PeoplePage.Sort sort) {
+        synchronized (sorted) {
+            return sorted.computeIfAbsent(sort, s -> {
+                UserInfo[] copy = users.clone();
+                Arrays.sort(copy, s.order);
+                return Collections.unmodifiableList(Arrays.asList(copy));
+            });
+        }
+    }
+
+    /**
+     * Finds people by prefix of their ID, their full name, or a word of their full name, and by last change.
+     *
+     * @param prefix searched case-insensitively; {@code null} or empty for everybody
+     * @param since if positive, only people with a change at or after this timestamp
+     * @param before if positive, only people with a change before this timestamp
+     * @param sort the order of the result
+     */
+    @NonNull
+    List<UserInfo> find(@CheckForNull String prefix, long since, long before, @NonNull PeoplePage.Sort sort) {
+        if (prefix == null || prefix.isEmpty()) {
+            List<UserInfo> all = sorted(sort);
+            if (since <= 0 && before <= 0) {
+                return all;
+            }
+            List<UserInfo> found = new ArrayList<>();
+            for (UserInfo info : all) {
+                if (isActive(info, since, before)) {
+                    found.add(info);
+                }
+            }
+            return found;
+        }
+        List<UserInfo> found = new ArrayList<>();
+        String p = prefix.toLowerCase(Locale.ROOT);
+        BitSet matched = new BitSet(users.length);
+        for (int i = lowerBound(p); i < keys.length && keys[i].startsWith(p); i++) {
+            int owner = owners[i];
+            if (!matched.get(owner)) {
+                matched.set(owner);
+                if (isActive(users[owner], since, before)) {
+                    found.add(users[owner]);
+                }
+            }
+        }
+        found.sort(sort.order);
+        return found;
+    }
+
+    /**
+     * @return the position of the first key not less than the specified one
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isActive(UserInfo info, long since, long before) {
+        long lastChange = info.getLastChangeMillis();
+        if (since > 0 && (lastChange == UserInfo.NO_CHANGE || lastChange < since)) {
+            return false;
+        }
+        return before <= 0 || lastChange != UserInfo.NO_CHANGE && lastChange < before;
+    }
+}
@@ -0,0 +1,667 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+import hudson.model.ModelObject;
+import hudson.model.Run;
+import hudson.model.User;
+import hudson.model.View;
+import hudson.scm.ChangeLogSet;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.scm.RunWithSCM;
+
+/**
+ * Commit authors in the jobs of a scope ({@link Jenkins} or a {@link View}), shared by all concurrent requests for that
+ * scope and reused for {@link PeopleViewConfiguration#getSnapshotTtlSeconds()} once complete.
+ * <p>
+ * The scan runs as {@link ACL#SYSTEM2} and publishes its results per job, so that each request can merge only the
+ * jobs visible to its user, and progressive renderings can stream results while the scan is still running.
+ * It starts once admitted by {@link ScanScheduler}, is aborted once no request is attached anymore, and stopped with
+ * partial results once it exceeds the budgets of {@link PeopleViewConfiguration}.
+ */
+final class PeopleSnapshot implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(PeopleSnapshot.class.getName());
+
+    private static final Map<String, PeopleSnapshot> SNAPSHOTS = new ConcurrentHashMap<>();
+
+    /**
+     * Some people active in one job: authors of changes with the timestamp of their latest change in it, and
+     * triggerers with the timestamp of the latest build they triggered.
+     * A job may be reported several times; the latest timestamp of each user wins.
+     */
+    static final class JobAuthors {
+        final Job<?, ?> job;
+        /** {@link Job#getFullName()}, interned so that entries referring to the same job share it. */
+        final String jobName;
+        final Map<User, Long> lastChanges;
+        final Map<User, Long> lastTriggers;
+
+        JobAuthors(Job<?, ?> job, Map<User, Long> lastChanges, Map<User, Long> lastTriggers) {
+            this.job = job;
+            this.jobName = job.getFullName().intern();
+            this.lastChanges = lastChanges;
+            this.lastTriggers = lastTriggers;
+        }
+
+        boolean isEmpty() {
+            return lastChanges.isEmpty() && lastTriggers.isEmpty();
+        }
+    }
+
+    /**
+     * Whether jobs published by a scan are visible to the current user, i.e. they may read the job and all items
+     * containing it, as {@link Item#getAllJobs()} would require.
+     * Only the jobs published are checked, rather than listing all jobs the user can see, and each containing item is
+     * checked once, so that one instance should be used per request.
+     */
+    static final class Visibility implements Predicate<Job<?, ?>> {
+        private final Map<Item, Boolean> readable = new HashMap<>();
+
+        @Override
+        public boolean test(Job<?, ?> job) {
+            return isReadable(job);
+        }
+
+        private boolean isReadable(Item item) {
+            Boolean result = readable.get(item);
+            if (result == null) {
+                ItemGroup<?> parent = item.getParent();
+                result = (!(parent instanceof Item) || isReadable((Item) parent)) && item.hasPermission(Item.READ);
+                readable.put(item, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The budgets of {@link PeopleViewConfiguration} a scan may exceed.
+     */
+    enum Budget {
+        /** {@link PeopleViewConfiguration#getScanTimeLimitSeconds()}. */
+        TIME,
+        /**
+         * {@link PeopleViewConfiguration#getScanBuildLimit()}. Every build looked at counts, whether its people are
+         * read from its {@link BuildAuthors} file or from its changelog, so that the budget bounds scans alike
+         * whichever way they find people.
+         */
+        BUILDS,
+        /**
+         * {@link PeopleViewConfiguration#getScanEntryLimit()}. Every author counts, whether read from a changelog
+         * entry or from a {@link BuildAuthors} file.
+         */
+        ENTRIES
+    }
+
+    private final String key;
+    private final ModelObject scope;
+    /** {@link PeopleChanges#generation()} when the snapshot was created. */
+    private final long generation = PeopleChanges.generation();
+    private final AtomicInteger attached = new AtomicInteger();
+    private final List<JobAuthors> results = new ArrayList<>();
+    private volatile double progress;
+    private volatile boolean aborted;
+    /** Whether the scan stopped because it exceeded a budget. */
+    private volatile boolean partial;
+    /** The budget the scan exceeded, if {@link #partial}. */
+    @CheckForNull
+    private volatile Budget exceeded;
+    /** The share of the scan done when it stopped. */
+    private volatile double coverage = 1;
+    /** {@link System#nanoTime()} after which the scan stops, if {@link #timeLimited}. */
+    private long deadline;
+    private boolean timeLimited;
+    private long buildLimit;
+    private long entryLimit;
+    /**
+     * Guards {@link #results} and the state below; a lock rather than the monitor of this object, so that requests
+     * waiting on virtual threads do not pin their carrier threads.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Signaled when results are published or the scan is done. */
+    private final Condition changed = lock.newCondition();
+    private boolean started;
+    private boolean done;
+    private long completed;
+    private Exception failure;
+    private ScanMetrics.Scan metrics;
+
+    private PeopleSnapshot(String key, ModelObject scope) {
+        this.key = key;
+        this.scope = scope;
+    }
+
+    static String key(ModelObject scope) {
+        return scope instanceof View ? "view:" + ((View) scope).getViewUrl() : "";
+    }
+
+    /**
+     * Returns the snapshot for the specified scope, starting a new scan unless one is in progress, or complete, recent
+     * enough, and nothing changed since it started, so that responses tagged by {@link PeopleChanges} are current.
+     * Callers must {@link #detach()} when they no longer need results.
+     */
+    @NonNull
+    static PeopleSnapshot attach(@NonNull ModelObject scope) {
+        long ttl = TimeUnit.SECONDS.toMillis(PeopleViewConfiguration.get().getSnapshotTtlSeconds());
+        SNAPSHOTS.values().removeIf(snapshot -> snapshot.isExpired(ttl));
+        String key = key(scope);
+        PeopleSnapshot snapshot = SNAPSHOTS.compute(key, (k, existing) -> {
+            PeopleSnapshot result = existing;
+            if (existing == null || existing.aborted || existing.isExpired(ttl)) {
+                result = new PeopleSnapshot(k, scope);
+            }
+            result.attached.incrementAndGet();
+            return result;
+        });
+        snapshot.start();
+        return snapshot;
+    }
+
+    /**
+     * Signals that the caller no longer needs results, aborting the scan if nobody else does.
+     */
+    void detach() {
+        SNAPSHOTS.compute(key, (k, current) -> {
+            if (attached.decrementAndGet() == 0 && !isDone()) {
+                aborted = true;
+                ScanScheduler.cancel(this);
+                return current == this ? null : current;
+            }
+            return current;
+        });
+    }
+
+    private void start() {
+        lock.lock();
+        try {
+            if (!started) {
+                started = true;
+                if (!ScanScheduler.submit(this)) {
+                    failure = new RejectedExecutionException("Too many people scans");
+                    done = true;
+                    completed = System.currentTimeMillis();
+                    changed.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return whether the scan was rejected by {@link ScanScheduler}
+     */
+    boolean isRejected() {
+        return getFailure() instanceof RejectedExecutionException;
+    }
+
+    /**
+     * @return the 1-based position of the scan among those waiting to start, or 0 if it is not waiting
+     */
+    int getQueuePosition() {
+        return ScanScheduler.position(this);
+    }
+
+    /**
+     * Whether a complete snapshot should no longer be reused. A scan in progress is never expired, even if people
+     * changed since it started, so that it keeps absorbing requests rather than each starting another scan.
+     */
+    private boolean isExpired(long ttl) {
+        lock.lock();
+        try {
+            return done
+                    && (failure != null
+                            || System.currentTimeMillis() - completed > ttl
+                            || generation < PeopleChanges.generation());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return {@link PeopleChanges#generation()} when this snapshot was created, before its scan started
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    boolean isDone() {
+        lock.lock();
+        try {
+            return done;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the share of the scan already done, between 0 and 1
+     */
+    double progress() {
+        return progress;
+    }
+
+    /**
+     * @return the exception the scan failed with, if any
+     */
+    @CheckForNull
+    Exception getFailure() {
+        lock.lock();
+        try {
+            return failure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until results beyond those already retrieved are available, or the scan is done.
+     *
+     * @param from number of results already retrieved
+     * @param timeout maximum time to wait in milliseconds
+     * @return results published since {@code from}, possibly empty
+     */
+    @NonNull
+    List<JobAuthors> await(int from, long timeout) throws InterruptedException {
+        lock.lock();
+        try {
+            if (results.size() <= from && !done) {
+                changed.await(timeout, TimeUnit.MILLISECONDS);
+            }
+            return new ArrayList<>(results.subList(Math.min(from, results.size()), results.size()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the scan is done.
+     *
+     * @return all results
+     */
+    @NonNull
+    List<JobAuthors> awaitAll() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!done) {
+                changed.await();
+            }
+            return new ArrayList<>(results);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void publish(JobAuthors authors) {
+        if (authors.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            metrics.users(authors.lastChanges.keySet());
+            metrics.users(authors.lastTriggers.keySet());
+            results.add(authors);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return whether the scan stopped because it exceeded a budget, so that results are incomplete
+     */
+    boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * @return the budget the scan exceeded, {@code null} unless {@link #isPartial()}
+     */
+    @CheckForNull
+    Budget getExceeded() {
+        return exceeded;
+    }
+
+    /**
+     * @return the share of the scan done when it stopped, 1 unless {@link #isPartial()}
+     */
+    double getCoverage() {
+        return coverage;
+    }
+
+    /**
+     * Whether the scan should stop, because nobody needs results anymore or it exceeded a budget.
+     */
+    private boolean stopped() {
+        if (aborted || partial) {
+            return true;
+        }
+        Budget budget = null;
+        if (timeLimited && System.nanoTime() - deadline > 0) {
+            budget = Budget.TIME;
+        } else if (buildLimit > 0 && metrics.builds.sum() >= buildLimit) {
+            budget = Budget.BUILDS;
+        } else if (entryLimit > 0 && metrics.entries.sum() >= entryLimit) {
+            budget = Budget.ENTRIES;
+        }
+        if (budget != null) {
+            exceeded = budget;
+            partial = true;
+        }
+        return partial;
+    }
+
+    @Override
+    public void run() {
+        metrics = ScanMetrics.start(key);
+        PeopleViewConfiguration config = PeopleViewConfiguration.get();
+        timeLimited = config.getScanTimeLimitSeconds() > 0;
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getScanTimeLimitSeconds());
+        buildLimit = config.getScanBuildLimit();
+        entryLimit = config.getScanEntryLimit();
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            long phase = System.nanoTime();
+            long generation = JobPartials.generation();
+            Collection<? extends Item> items =
+                    scope instanceof View ? ((View) scope).getItems() : Jenkins.get().getItems();
+            PeopleIndex index = PeopleIndex.get();
+            boolean ready = index.isReady();
+            List<Job<?, ?>> jobs;
+            List<Job<?, ?>> unchanged = new ArrayList<>();
+            Map<Item, List<Job<?, ?>>> listed = new LinkedHashMap<>();
+            if (ready) {
+                jobs = getJobs(items);
+            } else {
+                // items in which nothing changed since a scan need not be recursed through
+                jobs = new ArrayList<>();
+                for (Item item : items) {
+                    List<Job<?, ?>> subtree = JobPartials.getSubtree(item);
+                    if (subtree != null) {
+                        unchanged.addAll(subtree);
+                    } else {
+                        subtree = getJobs(List.of(item));
+                        listed.put(item, subtree);
+                        jobs.addAll(subtree);
+                    }
+                }
+            }
+            metrics.jobs.add(jobs.size() + unchanged.size());
+            metrics.phase("listJobs", phase);
+            long since = PeopleViewConfiguration.get().getActivityHorizonStart();
+            phase = System.nanoTime();
+            if (ready) {
+                for (int i = 0; i < jobs.size() && !stopped(); i++) {
+                    Job<?, ?> job = jobs.get(i);
+                    publish(new JobAuthors(
+                            job, index.getLastChanges(job, since), index.getLastTriggers(job, since)));
+                    progress = 1.0 * (i + 1) / jobs.size();
+                }
+                metrics.phase("index", phase);
+            } else {
+                // jobs without a new build since another scan only need their partial merged
+                List<Job<?, ?>> toScan = new ArrayList<>();
+                for (Job<?, ?> job : unchanged) {
+                    publishPartial(job, since, toScan);
+                }
+                for (Job<?, ?> job : jobs) {
+                    JobPartials.Partial cached = JobPartials.get(job);
+                    if (cached != null && cached.isCurrent(job) && cached.covers(since)) {
+                        publishPartial(job, since, toScan);
+                    } else {
+                        toScan.add(job);
+                    }
+                }
+                int threads = PeopleViewConfiguration.get().getScanThreads();
+                if (threads > 1 && toScan.size() > 1) {
+                    scanInParallel(toScan, since, threads, generation);
+                } else if (index.isBackfilled()) {
+                    // every build has an author file, so none needs to be loaded, and the order does not matter
+                    for (int i = 0; i < toScan.size() && !stopped(); i++) {
+                        scan(toScan.get(i), since, generation);
+                        progress = 1.0 * (i + 1) / toScan.size();
+                    }
+                } else {
+                    scanNewestFirst(toScan, since);
+                }
+                if (!stopped()) {
+                    for (Map.Entry<Item, List<Job<?, ?>>> subtree : listed.entrySet()) {
+                        if (subtree.getValue().stream().allMatch(job -> {
+                            JobPartials.Partial partial = JobPartials.get(job);
+                            return partial != null && partial.isCurrent(job);
+                        })) {
+                            JobPartials.putSubtree(subtree.getKey(), subtree.getValue(), generation);
+                        }
+                    }
+                }
+                metrics.phase("builds", phase);
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to compute people for " + scope.getDisplayName(), e);
+            lock.lock();
+            try {
+                failure = e;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            ScanMetrics.finish(metrics, aborted, partial);
+            lock.lock();
+            try {
+                coverage = partial ? progress : 1;
+                done = true;
+                completed = System.currentTimeMillis();
+                progress = 1;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Publishes the partial of a job, or adds the job to those to scan if it has none covering {@code since}.
+     */
+    private void publishPartial(Job<?, ?> job, long since, List<Job<?, ?>> toScan) {
+        JobPartials.Partial partial = JobPartials.get(job);
+        if (partial != null && partial.covers(since)) {
+            publish(partial.toJobAuthors(job, since));
+            metrics.reusedJobs.increment();
+        } else {
+            toScan.add(job);
+        }
+    }
+
+    private static List<Job<?, ?>> getJobs(Collection<? extends Item> items) {
+        List<Job<?, ?>> jobs = new ArrayList<>();
+        for (Item item : items) {
+            for (Job<?, ?> job : item.getAllJobs()) {
+                jobs.add(job);
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Visits builds newest first across all jobs, publishing the authors and triggerers of each build not seen in its
+     * job before. Since builds are visited newest first, these are their latest activities in that job.
+     * Both are collected from the same loaded build.
+     */
+    private void scanNewestFirst(List<Job<?, ?>> jobs, long since) {
+        Map<Job<?, ?>, Set<User>> seenAuthors = new HashMap<>();
+        Map<Job<?, ?>, Set<User>> seenTriggerers = new HashMap<>();
+        NewestBuilds builds = new NewestBuilds(jobs, since);
+        while (builds.hasNext() && !stopped()) {
+            Run<?, ?> r = builds.next();
+            metrics.builds.increment();
+            Map<User, Long> lastChanges = new HashMap<>();
+            if (r instanceof RunWithSCM) {
+                Set<User> seenInJob = seenAuthors.computeIfAbsent(r.getParent(), k -> new HashSet<>());
+                for (ChangeLogSet<? extends ChangeLogSet.Entry> c : ((RunWithSCM<?, ?>) r).getChangeSets()) {
+                    for (ChangeLogSet.Entry entry : c) {
+                        metrics.entries.increment();
+                        User user = entry.getAuthor();
+                        if (seenInJob.add(user)) {
+                            lastChanges.put(user, r.getTimeInMillis());
+                        }
+                    }
+                }
+            }
+            Map<User, Long> lastTriggers = new HashMap<>();
+            Set<User> seenInJob = seenTriggerers.computeIfAbsent(r.getParent(), k -> new HashSet<>());
+            for (String id : BuildAuthors.collectTriggerers(r)) {
+                User user = User.getById(id, false);
+                if (user != null && seenInJob.add(user)) {
+                    lastTriggers.put(user, r.getTimeInMillis());
+                }
+            }
+            publish(new JobAuthors(r.getParent(), lastChanges, lastTriggers));
+            progress = builds.progress();
+        }
+    }
+
+    /**
+     * Distributes the jobs to scan across a bounded number of threads.
+     * Each thread collects the authors of one job at a time, then publishes them.
+     */
+    private void scanInParallel(List<Job<?, ?>> jobs, long since, int threads, long generation) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger scanned = new AtomicInteger();
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(threads, jobs.size()); i++) {
+            workers.add(() -> {
+                try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+                    for (int n = next.getAndIncrement(); n < jobs.size() && !stopped(); n = next.getAndIncrement()) {
+                        scan(jobs.get(n), since, generation);
+                        progress = 1.0 * scanned.incrementAndGet() / jobs.size();
+                    }
+                }
+                return null;
+            });
+        }
+        // on the pool shared by all scans, so that concurrent scans do not multiply the threads reading builds
+        for (Future<Void> future : ScanScheduler.workers().invokeAll(workers)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+    }
+
+    /**
+     * Collects the authors of changes in and triggerers of the specified job from the {@link BuildAuthors} files of
+     * its builds, then publishes them.
+     * Builds without such a file are loaded, and the file written.
+     * Builds are read newest first, down to the watermark of the {@link JobPartials.Partial} of the job, or to the
+     * first build before {@code since}, so that older builds are not loaded. Unless the scan stopped, the people
+     * active in the builds read and those of the previous partial are kept as its new partial, before being filtered
+     * by {@code since}.
+     *
+     * @param generation {@link JobPartials#generation()} when the scan started
+     */
+    private void scan(Job<?, ?> job, long since, long generation) {
+        int last = job.getNextBuildNumber() - 1;
+        JobPartials.Partial cached = JobPartials.get(job);
+        if (cached != null && !cached.covers(since)) {
+            // computed for a shorter activity horizon
+            cached = null;
+        }
+        int watermark = cached != null ? cached.watermark : 0;
+        long covered = cached != null ? cached.since : 0;
+        Map<User, Long> lastChanges = cached != null ? new HashMap<>(cached.lastChanges) : new HashMap<>();
+        Map<User, Long> lastTriggers = cached != null ? new HashMap<>(cached.lastTriggers) : new HashMap<>();
+        boolean complete = true;
+        for (int number : BuildAuthors.numbersNewestFirst(job)) {
+            if (stopped()) {
+                complete = false;
+                break;
+            }
+            if (number > last) {
+                // started since the scan did, and to be folded by the next one
+                continue;
+            }
+            if (number <= watermark) {
+                // this and all older builds were already folded
+                break;
+            }
+            BuildAuthors build = BuildAuthors.get(job, number);
+            metrics.builds.increment();
+            if (build == null) {
+                continue;
+            }
+            if (build.timestamp < since) {
+                // beyond the activity horizon, as are all older builds
+                covered = Math.max(covered, since);
+                break;
+            }
+            for (String id : build.authors) {
+                metrics.entries.increment();
+                User user = User.getById(id, true);
+                if (user != null) {
+                    lastChanges.merge(user, build.timestamp, Math::max);
+                }
+            }
+            for (String id : build.triggerers) {
+                // unlike authors, which ChangeLogSet.Entry#getAuthor() creates, triggerers must already exist
+                User user = User.getById(id, false);
+                if (user != null) {
+                    lastTriggers.merge(user, build.timestamp, Math::max);
+                }
+            }
+        }
+        JobPartials.Partial partial = new JobPartials.Partial(last, covered, lastChanges, lastTriggers);
+        if (complete) {
+            JobPartials.put(job, partial, generation);
+        }
+        publish(partial.toJobAuthors(job, since));
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Job;
+import hudson.model.User;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONObject;
+import net.sf.json.util.JSONUtils;
+
+/**
+ * The people computed for one user and scope, delivered to browsers as sequence-numbered deltas.
+ * <p>
+ * Each entry is serialized once whenever it changes, and recorded in a journal under a new sequence number.
+ * Clients ask for the entries changed since the last sequence number they received, so that polling only copies
+ * strings, and a client that lost its connection or reloaded the page resumes where it stopped instead of waiting for
+ * the computation to start over.
+ * Streams are kept for {@link #RETENTION} after they were last used, or for
+ * {@link PeopleViewConfiguration#getSnapshotTtlSeconds()} once complete.
+ */
+final class PeopleStream {
+
+    private static final long RETENTION = TimeUnit.MINUTES.toMillis(
+            SystemProperties.getInteger(PeopleStream.class.getName() + ".retentionMinutes", 5));
+
+    /** Streams by ID. */
+    private static final Map<String, PeopleStream> STREAMS = new ConcurrentHashMap<>();
+
+    /** Streams by user and scope. */
+    private static final Map<String, PeopleStream> BY_OWNER = new ConcurrentHashMap<>();
+
+    private final String id = UUID.randomUUID().toString();
+    private final String owner;
+    private final String key;
+
+    /**
+     * An entry and its latest serialized form.
+     * Changes are made while holding the entry's monitor, so that concurrent changes to different entries do not
+     * contend, and readers never lock it.
+     */
+    private static final class Entry {
+        final UserInfo info;
+        volatile String serialized;
+        /** Key of this entry in {@link PeopleStream#journal}; guarded by {@link PeopleStream#journalLock}. */
+        long seq;
+
+        Entry(UserInfo info) {
+            this.info = info;
+        }
+    }
+
+    private final ConcurrentMap<User, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Entries by the sequence number of their latest change. Each entry is only present once, under its latest
+     * change, so the journal never grows beyond the number of entries.
+     */
+    private final ConcurrentSkipListMap<Long, Entry> journal = new ConcurrentSkipListMap<>();
+
+    /**
+     * Serializes the allocation of sequence numbers among writers, so that all changes up to {@link #seq} are in the
+     * {@link #journal} when readers see it. Never taken by readers.
+     */
+    private final Object journalLock = new Object();
+
+    private volatile long seq;
+    private volatile long lastAccess = System.currentTimeMillis();
+    private volatile boolean complete;
+    private volatile long completed;
+    /** See {@link People#getCoverage()}. */
+    private volatile double coverage = 1;
+    /** See {@link PeopleSnapshot#getExceeded()}. */
+    @CheckForNull
+    private volatile PeopleSnapshot.Budget exceeded;
+
+    private PeopleStream(String owner, String key) {
+        this.owner = owner;
+        this.key = key;
+    }
+
+    /**
+     * Returns the stream of the current user for the specified scope, resuming the previous one if it is still usable.
+     *
+     * @param scope identifies the people computed, e.g. the URL of a view
+     */
+    @NonNull
+    static PeopleStream open(@NonNull String scope) {
+        long now = System.currentTimeMillis();
+        long ttl = TimeUnit.SECONDS.toMillis(PeopleViewConfiguration.get().getSnapshotTtlSeconds());
+        STREAMS.values().removeIf(stream -> {
+            if (stream.isExpired(now, ttl)) {
+                BY_OWNER.remove(stream.key, stream);
+                return true;
+            }
+            return false;
+        });
+        String owner = Jenkins.getAuthentication2().getName();
+        PeopleStream stream = BY_OWNER.compute(owner + '\u0000' + scope, (k, existing) -> {
+            if (existing != null && !existing.isExpired(now, ttl)) {
+                existing.lastAccess = now;
+                return existing;
+            }
+            if (existing != null) {
+                STREAMS.remove(existing.id);
+            }
+            return new PeopleStream(owner, k);
+        });
+        STREAMS.put(stream.id, stream);
+        return stream;
+    }
+
+    /**
+     * Looks up a stream of the current user.
+     */
+    @CheckForNull
+    static PeopleStream get(@CheckForNull String id) {
+        PeopleStream stream = id == null ? null : STREAMS.get(id);
+        if (stream == null || !stream.owner.equals(Jenkins.getAuthentication2().getName())) {
+            return null;
+        }
+        stream.lastAccess = System.currentTimeMillis();
+        return stream;
+    }
+
+    private boolean isExpired(long now, long ttl) {
+        return complete ? now - completed > ttl : now - lastAccess > RETENTION;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    /**
+     * @return the sequence number of the latest change
+     */
+    long getSeq() {
+        return seq;
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Marks all people as computed.
+     */
+    void complete() {
+        complete(1, null);
+    }
+
+    /**
+     * Marks all people as computed, as far as budgets allowed.
+     *
+     * @param coverage see {@link People#getCoverage()}
+     * @param exceeded see {@link PeopleSnapshot#getExceeded()}
+     */
+    void complete(double coverage, @CheckForNull PeopleSnapshot.Budget exceeded) {
+        this.coverage = coverage;
+        this.exceeded = exceeded;
+        completed = System.currentTimeMillis();
+        complete = true;
+    }
+
+    boolean contains(User user) {
+        return entries.containsKey(user);
+    }
+
+    /**
+     * Adds an entry for a user not known yet.
+     *
+     * @return whether the entry was added, {@code false} if there already was one for that user
+     */
+    boolean add(UserInfo info) {
+        Entry entry = new Entry(info);
+        synchronized (entry) {
+            if (entries.putIfAbsent(info.getUser(), entry) != null) {
+                return false;
+            }
+            entry.serialized = toJSON(info);
+        }
+        publish(entry);
+        return true;
+    }
+
+    /**
+     * Records a commit of a known user, unless they made a later one.
+     */
+    void update(User user, String jobName, long timestamp) {
+        Entry entry = entries.get(user);
+        synchronized (entry) {
+            if (!entry.info.update(jobName, timestamp)) {
+                return;
+            }
+            entry.serialized = toJSON(entry.info);
+        }
+        publish(entry);
+    }
+
+    /**
+     * Records a build triggered by a known user, unless they triggered a later one.
+     */
+    void updateTrigger(User user, String jobName, long timestamp) {
+        Entry entry = entries.get(user);
+        synchronized (entry) {
+            if (!entry.info.updateTrigger(jobName, timestamp)) {
+                return;
+            }
+            entry.serialized = toJSON(entry.info);
+        }
+        publish(entry);
+    }
+
+    /**
+     * Records the avatar of a user once resolved.
+     */
+    void setAvatar(User user, String url) {
+        Entry entry = entries.get(user);
+        synchronized (entry) {
+            entry.info.avatar = url;
+            entry.serialized = toJSON(entry.info);
+        }
+        publish(entry);
+    }
+
+    /**
+     * Moves an entry to a new sequence number at the end of the journal.
+     */
+    private void publish(Entry entry) {
+        synchronized (journalLock) {
+            long next = seq + 1;
+            journal.put(next, entry);
+            if (entry.seq != 0) {
+                journal.remove(entry.seq);
+            }
+            entry.seq = next;
+            seq = next;
+        }
+    }
+
+    private static String toJSON(UserInfo info) {
+        User u = info.getUser();
+        JSONObject entry = new JSONObject()
+                .accumulate("id", u.getId())
+                .accumulate("fullName", u.getFullName())
+                .accumulate("url", u.getUrl() + "/")
+                .accumulate("timeSortKey", info.getTimeSortKey())
+                .accumulate("lastChangeTimeString", info.getLastChangeTimeString());
+        if (info.avatar != null) {
+            entry.accumulate("avatar", info.avatar);
+        }
+        Job<?, ?> p = info.getJob();
+        if (p != null) {
+            entry.accumulate("projectUrl", p.getUrl()).accumulate("projectFullDisplayName", p.getFullDisplayName());
+        }
+        if (info.getLastTriggerMillis() != UserInfo.NO_CHANGE) {
+            entry.accumulate("triggerSortKey", info.getTriggerSortKey())
+                    .accumulate("lastTriggerTimeString", info.getLastTriggerTimeString());
+        }
+        return entry.toString();
+    }
+
+    /**
+     * Writes the entries changed since the specified sequence number as JSON.
+     * If that sequence number is unknown to this stream, all entries are written, and the client told to start over.
+     */
+    void writeDelta(long since, Writer w) throws IOException {
+        long current = seq;
+        boolean reset = since < 0 || since > current;
+        // entries changed again after current are skipped here, and written by the next delta
+        List<String> changes = new ArrayList<>();
+        for (Entry entry : journal.subMap(reset ? 0 : since, false, current, true).values()) {
+            changes.add(entry.serialized);
+        }
+        w.write("{\"stream\":");
+        w.write(JSONUtils.quote(id));
+        w.write(",\"seq\":");
+        w.write(Long.toString(current));
+        w.write(",\"reset\":");
+        w.write(Boolean.toString(reset));
+        w.write(",\"complete\":");
+        w.write(Boolean.toString(complete));
+        if (complete && coverage < 1) {
+            w.write(",\"partial\":true,\"coverage\":");
+            w.write(Double.toString(coverage));
+            PeopleSnapshot.Budget exceeded = this.exceeded;
+            if (exceeded != null) {
+                // which notice to show
+                w.write(",\"exceeded\":");
+                w.write(JSONUtils.quote(exceeded.name().toLowerCase(Locale.ROOT)));
+            }
+        }
+        w.write(",\"entries\":[");
+        for (int i = 0; i < changes.size(); i++) {
+            if (i > 0) {
+                w.write(',');
+            }
+            w.write(changes.get(i));
+        }
+        w.write("]}");
+    }
+}
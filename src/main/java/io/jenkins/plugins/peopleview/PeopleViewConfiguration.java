@@ -0,0 +1,241 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.util.FormValidation;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.GlobalConfiguration;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * Global settings controlling how people views are computed.
+ */
+@Extension
+public class PeopleViewConfiguration extends GlobalConfiguration {
+
+    /**
+     * Number of threads scanning builds when {@link AsynchPeople} cannot answer from {@link PeopleIndex}.
+     */
+    private int scanThreads = 1;
+
+    /**
+     * Only changes in builds started within this many days are considered; 0 to consider all builds.
+     */
+    private int activityHorizonDays;
+
+    /**
+     * How long a completed people computation is reused by later requests for the same scope.
+     */
+    private int snapshotTtlSeconds = 60;
+
+    /**
+     * Maximum duration of a scan of builds, after which partial results are returned; 0 for no limit.
+     */
+    private int scanTimeLimitSeconds;
+
+    /**
+     * Maximum number of builds read by a scan, after which partial results are returned; 0 for no limit.
+     */
+    private int scanBuildLimit;
+
+    /**
+     * Maximum number of changelog entries read by a scan, after which partial results are returned; 0 for no limit.
+     */
+    private int scanEntryLimit;
+
+    /**
+     * Whether users without commits are enumerated one by one from the users directory, see {@link UserDirectory}.
+     */
+    private boolean lazyUserEnumeration;
+
+    /**
+     * Maximum number of scans running at once, see {@link ScanScheduler}.
+     */
+    private int maxConcurrentScans = 2;
+
+    /**
+     * Maximum number of scans waiting for others to finish, beyond which requests needing a new scan are rejected.
+     */
+    private int maxQueuedScans = 10;
+
+    public PeopleViewConfiguration() {
+        load();
+    }
+
+    public static PeopleViewConfiguration get() {
+        return ExtensionList.lookupSingleton(PeopleViewConfiguration.class);
+    }
+
+    public int getScanThreads() {
+        return Math.max(1, scanThreads);
+    }
+
+    @DataBoundSetter
+    public void setScanThreads(int scanThreads) {
+        this.scanThreads = Math.max(1, scanThreads);
+        save();
+    }
+
+    public int getActivityHorizonDays() {
+        return Math.max(0, activityHorizonDays);
+    }
+
+    @DataBoundSetter
+    public void setActivityHorizonDays(int activityHorizonDays) {
+        this.activityHorizonDays = Math.max(0, activityHorizonDays);
+        save();
+    }
+
+    /**
+     * Timestamp of the oldest build to consider according to {@link #getActivityHorizonDays()}.
+     *
+     * @return 0 if all builds are considered
+     */
+    public long getActivityHorizonStart() {
+        int days = getActivityHorizonDays();
+        return days > 0 ? System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days) : 0;
+    }
+
+    public int getSnapshotTtlSeconds() {
+        return Math.max(0, snapshotTtlSeconds);
+    }
+
+    @DataBoundSetter
+    public void setSnapshotTtlSeconds(int snapshotTtlSeconds) {
+        this.snapshotTtlSeconds = Math.max(0, snapshotTtlSeconds);
+        save();
+    }
+
+    public int getScanTimeLimitSeconds() {
+        return Math.max(0, scanTimeLimitSeconds);
+    }
+
+    @DataBoundSetter
+    public void setScanTimeLimitSeconds(int scanTimeLimitSeconds) {
+        this.scanTimeLimitSeconds = Math.max(0, scanTimeLimitSeconds);
+        save();
+    }
+
+    public int getScanBuildLimit() {
+        return Math.max(0, scanBuildLimit);
+    }
+
+    @DataBoundSetter
+    public void setScanBuildLimit(int scanBuildLimit) {
+        this.scanBuildLimit = Math.max(0, scanBuildLimit);
+        save();
+    }
+
+    public int getScanEntryLimit() {
+        return Math.max(0, scanEntryLimit);
+    }
+
+    @DataBoundSetter
+    public void setScanEntryLimit(int scanEntryLimit) {
+        this.scanEntryLimit = Math.max(0, scanEntryLimit);
+        save();
+    }
+
+    public boolean isLazyUserEnumeration() {
+        return lazyUserEnumeration;
+    }
+
+    @DataBoundSetter
+    public void setLazyUserEnumeration(boolean lazyUserEnumeration) {
+        this.lazyUserEnumeration = lazyUserEnumeration;
+        save();
+    }
+
+    public int getMaxConcurrentScans() {
+        return Math.max(1, maxConcurrentScans);
+    }
+
+    @DataBoundSetter
+    public void setMaxConcurrentScans(int maxConcurrentScans) {
+        this.maxConcurrentScans = Math.max(1, maxConcurrentScans);
+        save();
+    }
+
+    public int getMaxQueuedScans() {
+        return Math.max(0, maxQueuedScans);
+    }
+
+    @DataBoundSetter
+    public void setMaxQueuedScans(int maxQueuedScans) {
+        this.maxQueuedScans = Math.max(0, maxQueuedScans);
+        save();
+    }
+
+    public FormValidation doCheckScanThreads(@QueryParameter int value) {
+        if (value < 1) {
+            return FormValidation.error(Messages.PeopleViewConfiguration_PositiveNumber());
+        }
+        if (value > Runtime.getRuntime().availableProcessors()) {
+            return FormValidation.warning(Messages.PeopleViewConfiguration_MoreThreadsThanProcessors(
+                    Runtime.getRuntime().availableProcessors()));
+        }
+        return FormValidation.ok();
+    }
+
+    public FormValidation doCheckActivityHorizonDays(@QueryParameter int value) {
+        return checkNonNegative(value);
+    }
+
+    public FormValidation doCheckSnapshotTtlSeconds(@QueryParameter int value) {
+        return checkNonNegative(value);
+    }
+
+    public FormValidation doCheckScanTimeLimitSeconds(@QueryParameter int value) {
+        return checkNonNegative(value);
+    }
+
+    public FormValidation doCheckScanBuildLimit(@QueryParameter int value) {
+        return checkNonNegative(value);
+    }
+
+    public FormValidation doCheckScanEntryLimit(@QueryParameter int value) {
+        return checkNonNegative(value);
+    }
+
+    public FormValidation doCheckMaxConcurrentScans(@QueryParameter int value) {
+        if (value < 1) {
+            return FormValidation.error(Messages.PeopleViewConfiguration_PositiveNumber());
+        }
+        return FormValidation.ok();
+    }
+
+    public FormValidation doCheckMaxQueuedScans(@QueryParameter int value) {
+        return checkNonNegative(value);
+    }
+
+    private static FormValidation checkNonNegative(int value) {
+        if (value < 0) {
+            return FormValidation.error(Messages.PeopleViewConfiguration_NonNegativeNumber());
+        }
+        return FormValidation.ok();
+    }
+}
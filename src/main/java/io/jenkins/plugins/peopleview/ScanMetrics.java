@@ -0,0 +1,248 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.User;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+/**
+ * Statistics about people computations since startup, available as JSON from {@code asynchPeople/metrics}.
+ */
+final class ScanMetrics {
+
+    /** Number of recent scans to keep details of. */
+    private static final int RECENT = 20;
+
+    private static final Deque<Scan> recent = new ArrayDeque<>();
+    private static final AtomicInteger active = new AtomicInteger();
+    private static final AtomicInteger peakActive = new AtomicInteger();
+    private static final LongAdder scans = new LongAdder();
+    private static final LongAdder abortedScans = new LongAdder();
+    private static final LongAdder partialScans = new LongAdder();
+    private static final LongAdder rejectedScans = new LongAdder();
+    private static final LongAdder canceledRequests = new LongAdder();
+    private static final Timer scanTime = new Timer();
+    private static final Timer avatarTime = new Timer();
+    private static final Timer userEnumerationTime = new Timer();
+
+    private ScanMetrics() {}
+
+    /**
+     * Accumulated durations of an operation.
+     */
+    static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        void record(long nanos) {
+            count.increment();
+            this.nanos.add(nanos);
+        }
+
+        JSONObject toJSON() {
+            long count = this.count.sum();
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos.sum());
+            return new JSONObject()
+                    .accumulate("count", count)
+                    .accumulate("totalMillis", millis)
+                    .accumulate("meanMillis", count == 0 ? 0 : millis / count);
+        }
+    }
+
+    /**
+     * Statistics about a single scan of a scope.
+     * Counters may be updated concurrently by several threads of the same scan.
+     */
+    static final class Scan {
+        private final String scope;
+        private final long started = System.currentTimeMillis();
+        private final long startedNanos = System.nanoTime();
+        final LongAdder jobs = new LongAdder();
+        /** Jobs whose {@link JobPartials.Partial} was reused rather than scanned. */
+        final LongAdder reusedJobs = new LongAdder();
+        final LongAdder builds = new LongAdder();
+        final LongAdder entries = new LongAdder();
+        /** Distinct users found while the scan runs; only their number is kept once it finishes. */
+        @CheckForNull
+        private volatile Set<User> users = ConcurrentHashMap.newKeySet();
+
+        private int userCount;
+        private final Map<String, Long> phases = new LinkedHashMap<>();
+        private long durationMillis = -1;
+        private boolean aborted;
+        private boolean partial;
+
+        private Scan(String scope) {
+            this.scope = scope;
+        }
+
+        /**
+         * Records the time spent in a phase of the scan.
+         *
+         * @param since {@link System#nanoTime()} when the phase started
+         */
+        synchronized void phase(String name, long since) {
+            phases.merge(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - since), Long::sum);
+        }
+
+        /**
+         * Records users found by the scan.
+         */
+        void users(@NonNull Collection<User> found) {
+            Set<User> users = this.users;
+            if (users != null) {
+                users.addAll(found);
+            }
+        }
+
+        synchronized JSONObject toJSON() {
+            Set<User> users = this.users;
+            return new JSONObject()
+                    .accumulate("scope", scope)
+                    .accumulate("started", started)
+                    .accumulate("durationMillis", durationMillis)
+                    .accumulate("aborted", aborted)
+                    .accumulate("partial", partial)
+                    .accumulate("jobs", jobs.sum())
+                    .accumulate("reusedJobs", reusedJobs.sum())
+                    .accumulate("builds", builds.sum())
+                    .accumulate("changeLogEntries", entries.sum())
+                    .accumulate("users", users != null ? users.size() : userCount)
+                    .accumulate("phaseMillis", JSONObject.fromObject(phases));
+        }
+    }
+
+    /**
+     * Records the start of a scan.
+     */
+    @NonNull
+    static Scan start(String scope) {
+        peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        scans.increment();
+        Scan scan = new Scan(scope);
+        synchronized (recent) {
+            recent.addFirst(scan);
+            if (recent.size() > RECENT) {
+                recent.removeLast();
+            }
+        }
+        return scan;
+    }
+
+    /**
+     * Records the end of a scan.
+     *
+     * @param aborted whether nobody needed the results anymore
+     * @param partial whether the scan exceeded a budget
+     */
+    static void finish(Scan scan, boolean aborted, boolean partial) {
+        active.decrementAndGet();
+        long nanos = System.nanoTime() - scan.startedNanos;
+        scanTime.record(nanos);
+        if (aborted) {
+            abortedScans.increment();
+        }
+        if (partial) {
+            partialScans.increment();
+        }
+        synchronized (scan) {
+            Set<User> users = scan.users;
+            if (users != null) {
+                scan.userCount = users.size();
+                scan.users = null;
+            }
+            scan.durationMillis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            scan.aborted = aborted;
+            scan.partial = partial;
+        }
+    }
+
+    /**
+     * Records that a request stopped waiting for people before they were all computed.
+     */
+    static void requestCanceled() {
+        canceledRequests.increment();
+    }
+
+    /**
+     * Records a scan rejected by {@link ScanScheduler}.
+     */
+    static void scanRejected() {
+        rejectedScans.increment();
+    }
+
+    /**
+     * Records the resolution of an avatar.
+     *
+     * @param since {@link System#nanoTime()} when resolution started
+     */
+    static void avatarResolved(long since) {
+        avatarTime.record(System.nanoTime() - since);
+    }
+
+    /**
+     * Records the enumeration of all users known to Jenkins.
+     *
+     * @param since {@link System#nanoTime()} when enumeration started
+     */
+    static void usersEnumerated(long since) {
+        userEnumerationTime.record(System.nanoTime() - since);
+    }
+
+    @NonNull
+    static JSONObject toJSON() {
+        JSONArray recentScans = new JSONArray();
+        synchronized (recent) {
+            for (Scan scan : recent) {
+                recentScans.add(scan.toJSON());
+            }
+        }
+        return new JSONObject()
+                .accumulate("scans", scans.sum())
+                .accumulate("activeScans", active.get())
+                .accumulate("peakActiveScans", peakActive.get())
+                .accumulate("abortedScans", abortedScans.sum())
+                .accumulate("partialScans", partialScans.sum())
+                .accumulate("queuedScans", ScanScheduler.queued())
+                .accumulate("rejectedScans", rejectedScans.sum())
+                .accumulate("canceledRequests", canceledRequests.sum())
+                .accumulate("scanTime", scanTime.toJSON())
+                .accumulate("avatarResolution", avatarTime.toJSON())
+                .accumulate("userEnumeration", userEnumerationTime.toJSON())
+                .accumulate("recentScans", recentScans);
+    }
+}
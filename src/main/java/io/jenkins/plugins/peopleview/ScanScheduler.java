@@ -0,0 +1,222 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+
+/**
+ * Admission control for {@link PeopleSnapshot} scans.
+ * <p>
+ * At most {@link PeopleViewConfiguration#getMaxConcurrentScans()} scans run at once; further scans wait in a first in,
+ * first out queue of at most {@link PeopleViewConfiguration#getMaxQueuedScans()}, and are rejected beyond that.
+ * Scans and the {@link AsynchPeople} requests waiting for them run on a dedicated executor, using virtual threads
+ * where the JDK supports them, since they mostly wait for disk or for each other. Scans reading builds with
+ * {@link PeopleViewConfiguration#getScanThreads()} threads share a pool of at most {@link #WORKER_THREADS} threads.
+ */
+final class ScanScheduler {
+
+    private static final Logger LOGGER = Logger.getLogger(ScanScheduler.class.getName());
+
+    private static final boolean VIRTUAL_THREADS =
+            SystemProperties.getBoolean(ScanScheduler.class.getName() + ".virtualThreads", true);
+
+    /** Suggested delay before retrying a rejected request. */
+    static final int RETRY_AFTER_SECONDS = 10;
+
+    /** Maximum number of threads reading builds for all parallel scans together. */
+    static final int WORKER_THREADS = SystemProperties.getInteger(
+            ScanScheduler.class.getName() + ".workerThreads",
+            Runtime.getRuntime().availableProcessors());
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private static final ExecutorService WORKERS = createWorkers();
+
+    /** Scans admitted but not started yet. Guarded by itself. */
+    private static final Deque<PeopleSnapshot> QUEUE = new ArrayDeque<>();
+
+    /** Number of scans admitted and started but not finished. Guarded by {@link #QUEUE}. */
+    private static int running;
+
+    private ScanScheduler() {}
+
+    private static ExecutorService createExecutor() {
+        if (VIRTUAL_THREADS) {
+            try {
+                // Java 21+
+                return (ExecutorService)
+                        Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                LOGGER.log(Level.FINE, "Virtual threads unavailable", e);
+            }
+        }
+        return Executors.newCachedThreadPool(new NamingThreadFactory(new DaemonThreadFactory(), "People scan"));
+    }
+
+    private static ExecutorService createWorkers() {
+        int threads = Math.max(1, WORKER_THREADS);
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "People scan worker"));
+        workers.allowCoreThreadTimeOut(true);
+        return workers;
+    }
+
+    /**
+     * The executor for scans and the requests waiting for them.
+     */
+    @NonNull
+    static ExecutorService executor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * The bounded executor shared by scans reading builds in parallel. Its tasks never wait for scans, so scans may
+     * wait for them.
+     */
+    @NonNull
+    static ExecutorService workers() {
+        return WORKERS;
+    }
+
+    /**
+     * Runs the specified scan as soon as admitted.
+     *
+     * @return {@code false} if the scan was rejected because too many are already running or waiting
+     */
+    static boolean submit(@NonNull PeopleSnapshot snapshot) {
+        PeopleViewConfiguration config = PeopleViewConfiguration.get();
+        synchronized (QUEUE) {
+            if (running >= config.getMaxConcurrentScans()) {
+                if (QUEUE.size() >= config.getMaxQueuedScans()) {
+                    ScanMetrics.scanRejected();
+                    return false;
+                }
+                QUEUE.add(snapshot);
+                return true;
+            }
+            running++;
+        }
+        execute(snapshot);
+        return true;
+    }
+
+    /**
+     * Withdraws a scan nobody needs anymore from the queue, if it has not started yet.
+     */
+    static void cancel(@NonNull PeopleSnapshot snapshot) {
+        synchronized (QUEUE) {
+            QUEUE.remove(snapshot);
+        }
+    }
+
+    /**
+     * @return the 1-based position of the specified scan in the queue, or 0 if it is not waiting
+     */
+    static int position(@NonNull PeopleSnapshot snapshot) {
+        synchronized (QUEUE) {
+            int position = 1;
+            for (PeopleSnapshot queued : QUEUE) {
+                if (queued == snapshot) {
+                    return position;
+                }
+                position++;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * @return the number of scans waiting to start
+     */
+    static int queued() {
+        synchronized (QUEUE) {
+            return QUEUE.size();
+        }
+    }
+
+    private static void execute(PeopleSnapshot snapshot) {
+        EXECUTOR.execute(() -> {
+            try {
+                snapshot.run();
+            } finally {
+                finished();
+            }
+        });
+    }
+
+    /**
+     * Starts as many waiting scans, in order, as there are now free slots.
+     */
+    private static void finished() {
+        int max = PeopleViewConfiguration.get().getMaxConcurrentScans();
+        List<PeopleSnapshot> next = new ArrayList<>();
+        synchronized (QUEUE) {
+            running--;
+            while (running < max && !QUEUE.isEmpty()) {
+                next.add(QUEUE.poll());
+                running++;
+            }
+        }
+        for (PeopleSnapshot snapshot : next) {
+            execute(snapshot);
+        }
+    }
+
+    /**
+     * The response to a request which cannot be answered because its scan was rejected.
+     */
+    @NonNull
+    static HttpResponses.HttpResponseException busy() {
+        return new HttpResponses.HttpResponseException() {
+            @Override
+            public void generateResponse(StaplerRequest2 req, StaplerResponse2 rsp, Object node) throws IOException {
+                rsp.setHeader("Retry-After", Integer.toString(RETRY_AFTER_SECONDS));
+                rsp.sendError(StaplerResponse2.SC_SERVICE_UNAVAILABLE, Messages.ScanScheduler_Busy());
+            }
+        };
+    }
+}
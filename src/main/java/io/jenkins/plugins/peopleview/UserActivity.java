@@ -0,0 +1,253 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Activity of one user over time, aggregated by {@link PeopleIndex} as builds complete.
+ * <p>
+ * Activity is counted in builds with a change by the user, since that is what {@link BuildAuthors} files record, so
+ * that these aggregates can be rebuilt without parsing changelogs.
+ * Counts per week are kept for each project in a ring buffer of {@link #WEEKS} buckets, the oldest being reused for
+ * each new week, so that they can be restricted to the projects visible to whoever asks for them. Projects without
+ * activity in any of those weeks are dropped.
+ * Counts per project are kept for at most {@link #TOP_PROJECTS} projects: once full, a new project replaces the one
+ * with the lowest count, and inherits that count, so that frequent projects are kept, with counts that may be
+ * overestimated by at most the count of the replaced project.
+ */
+@Restricted(NoExternalUse.class)
+public final class UserActivity {
+
+    /** Number of weeks activity is kept for. */
+    static final int WEEKS = 52;
+
+    /** Number of projects activity is kept for. */
+    static final int TOP_PROJECTS = 5;
+
+    private static final long WEEK = TimeUnit.DAYS.toMillis(7);
+
+    /**
+     * Counts per week by {@link hudson.model.Job#getFullName()}, indexed by week since the epoch modulo {@link #WEEKS}.
+     */
+    private final Map<String, int[]> weeks = new HashMap<>();
+
+    /** Week since the epoch of the latest activity; buckets of weeks up to {@link #WEEKS} before it are valid. */
+    private long lastWeek = Long.MIN_VALUE;
+
+    /** Counts per {@link hudson.model.Job#getFullName()}. */
+    private final Map<String, Integer> projects = new LinkedHashMap<>();
+
+    /**
+     * Records a build with a change by this user.
+     *
+     * @param project the full name of the job
+     * @param timestamp the build timestamp
+     */
+    synchronized void record(@NonNull String project, long timestamp) {
+        long week = Math.floorDiv(timestamp, WEEK);
+        if (week > lastWeek) {
+            // clear the buckets of the weeks without activity, reused from weeks out of the window
+            long from = lastWeek == Long.MIN_VALUE ? week - WEEKS + 1 : Math.max(lastWeek + 1, week - WEEKS + 1);
+            for (Iterator<int[]> it = weeks.values().iterator(); it.hasNext(); ) {
+                int[] counts = it.next();
+                for (long w = from; w <= week; w++) {
+                    counts[bucket(w)] = 0;
+                }
+                if (Arrays.stream(counts).allMatch(count -> count == 0)) {
+                    it.remove();
+                }
+            }
+            lastWeek = week;
+        }
+        if (week > lastWeek - WEEKS) {
+            weeks.computeIfAbsent(project, k -> new int[WEEKS])[bucket(week)]++;
+        }
+
+        Integer count = projects.get(project);
+        if (count != null) {
+            projects.put(project, count + 1);
+        } else if (projects.size() < TOP_PROJECTS) {
+            projects.put(project, 1);
+        } else {
+            Map.Entry<String, Integer> min =
+                    projects.entrySet().stream().min(Map.Entry.comparingByValue()).orElseThrow();
+            projects.remove(min.getKey());
+            projects.put(project, min.getValue() + 1);
+        }
+    }
+
+    /**
+     * Moves the activity in a job, or the jobs in a folder, to its new name.
+     */
+    synchronized void rename(@NonNull String oldFullName, @NonNull String newFullName) {
+        Map<String, Integer> renamed = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> project : projects.entrySet()) {
+            String name = project.getKey();
+            if (name.equals(oldFullName) || name.startsWith(oldFullName + "/")) {
+                name = newFullName + name.substring(oldFullName.length());
+            }
+            renamed.merge(name, project.getValue(), Integer::sum);
+        }
+        projects.clear();
+        projects.putAll(renamed);
+
+        Map<String, int[]> renamedWeeks = new HashMap<>();
+        for (Map.Entry<String, int[]> project : weeks.entrySet()) {
+            String name = project.getKey();
+            if (name.equals(oldFullName) || name.startsWith(oldFullName + "/")) {
+                name = newFullName + name.substring(oldFullName.length());
+            }
+            renamedWeeks.merge(name, project.getValue(), (a, b) -> {
+                for (int i = 0; i < WEEKS; i++) {
+                    a[i] += b[i];
+                }
+                return a;
+            });
+        }
+        weeks.clear();
+        weeks.putAll(renamedWeeks);
+    }
+
+    synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(lastWeek);
+        out.writeInt(weeks.size());
+        for (Map.Entry<String, int[]> project : weeks.entrySet()) {
+            out.writeUTF(project.getKey());
+            for (int count : project.getValue()) {
+                out.writeInt(count);
+            }
+        }
+        out.writeInt(projects.size());
+        for (Map.Entry<String, Integer> project : projects.entrySet()) {
+            out.writeUTF(project.getKey());
+            out.writeInt(project.getValue());
+        }
+    }
+
+    static UserActivity readFrom(DataInputStream in) throws IOException {
+        UserActivity activity = new UserActivity();
+        activity.lastWeek = in.readLong();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String project = in.readUTF();
+            int[] counts = new int[WEEKS];
+            for (int w = 0; w < WEEKS; w++) {
+                counts[w] = in.readInt();
+            }
+            activity.weeks.put(project, counts);
+        }
+        count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            activity.projects.put(in.readUTF(), in.readInt());
+        }
+        return activity;
+    }
+
+    private static int bucket(long week) {
+        return (int) Math.floorMod(week, WEEKS);
+    }
+
+    /**
+     * Counts builds with a change by this user per week, the current week first.
+     *
+     * @param now the current time
+     * @param projects which projects to count, by {@link hudson.model.Job#getFullName()}
+     * @return {@link #WEEKS} counts
+     */
+    @NonNull
+    synchronized int[] getWeeklyActivity(long now, @NonNull Predicate<String> projects) {
+        int[] counts = new int[WEEKS];
+        long current = Math.floorDiv(now, WEEK);
+        for (Map.Entry<String, int[]> project : weeks.entrySet()) {
+            if (!projects.test(project.getKey())) {
+                continue;
+            }
+            for (int i = 0; i < WEEKS; i++) {
+                long week = current - i;
+                if (week <= lastWeek && week > lastWeek - WEEKS) {
+                    counts[i] += project.getValue()[bucket(week)];
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * The projects this user changed most often, most frequent first.
+     */
+    @NonNull
+    synchronized List<ProjectActivity> getTopProjects() {
+        List<ProjectActivity> top = new ArrayList<>();
+        for (Map.Entry<String, Integer> project : projects.entrySet()) {
+            top.add(new ProjectActivity(project.getKey(), project.getValue()));
+        }
+        top.sort(Comparator.comparingInt(ProjectActivity::getBuilds).reversed());
+        return top;
+    }
+
+    /**
+     * Number of builds of one project with a change by a user.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static final class ProjectActivity {
+        private final String name;
+        private final int builds;
+
+        ProjectActivity(String name, int builds) {
+            this.name = name;
+            this.builds = builds;
+        }
+
+        /**
+         * @return {@link hudson.model.Job#getFullName()}
+         */
+        @Exported
+        public String getName() {
+            return name;
+        }
+
+        @Exported
+        public int getBuilds() {
+            return builds;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.User;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import jenkins.model.Jenkins;
+
+/**
+ * Enumerates users one by one, without loading them all first as {@link User#getAll()} does.
+ * <p>
+ * When {@link PeopleViewConfiguration#isLazyUserEnumeration()}, user IDs are read one at a time from the index of the
+ * users directory, {@code users/users.xml}, and each user is only loaded when handed to the caller, so that a caller
+ * which stops early, e.g. because its request was canceled, loads no more users than it needed.
+ * Users which were never saved, e.g. only seen as commit authors, are not enumerated this way.
+ */
+final class UserDirectory {
+
+    private static final Logger LOGGER = Logger.getLogger(UserDirectory.class.getName());
+
+    static final String INDEX_FILE = "users.xml";
+
+    private UserDirectory() {}
+
+    /**
+     * Hands over each user but {@link User#getUnknown()}, until the action returns {@code false}.
+     * Falls back to {@link User#getAll()} if lazy enumeration is disabled or the index of the users directory cannot be
+     * read, in which case users enumerated before the failure may be handed over again.
+     *
+     * @return {@code false} if the action stopped the enumeration
+     */
+    static boolean forEachUser(@NonNull Predicate<User> action) {
+        User unknown = User.getUnknown();
+        Predicate<User> known = u -> u == unknown || action.test(u);
+        if (PeopleViewConfiguration.get().isLazyUserEnumeration()) {
+            File index = new File(new File(Jenkins.get().getRootDir(), "users"), INDEX_FILE);
+            try {
+                return forEachId(index, id -> {
+                    User u = User.getById(id, false);
+                    return u == null || known.test(u);
+                });
+            } catch (NoSuchFileException e) {
+                LOGGER.log(Level.FINE, "No {0}, loading all users", index);
+            } catch (IOException | XMLStreamException e) {
+                LOGGER.log(Level.WARNING, "Failed to read " + index + ", loading all users", e);
+            }
+        }
+        for (User u : User.getAll()) {
+            if (!known.test(u)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads user IDs from the index of a users directory, a map of IDs to directory names serialized by XStream.
+     *
+     * @return {@code false} if the action stopped the enumeration
+     */
+    static boolean forEachId(@NonNull File index, @NonNull Predicate<String> action)
+            throws IOException, XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try (InputStream in = Files.newInputStream(index.toPath())) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                boolean key = false;
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    if (reader.getLocalName().equals("entry")) {
+                        // the first child of each entry is the ID, the second the directory name
+                        key = true;
+                    } else if (key) {
+                        key = false;
+                        if (!action.test(reader.getElementText())) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            } finally {
+                reader.close();
+            }
+        }
+    }
+}
@@ -25,38 +25,97 @@
 
 package io.jenkins.plugins.peopleview;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.Util;
 import hudson.model.AbstractProject;
 import hudson.model.Job;
 import hudson.model.User;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.time.Instant;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.List;
+import jenkins.model.Jenkins;
 import org.kohsuke.stapler.export.Exported;
 import org.kohsuke.stapler.export.ExportedBean;
 
 @SuppressFBWarnings("EQ_COMPARETO_USE_OBJECT_EQUALS") // TODO Unchanged from core
 @ExportedBean(defaultVisibility = 2)
 public class UserInfo implements Comparable<UserInfo> {
+    /**
+     * Value of {@link #lastChange} for users without any commit.
+     */
+    static final long NO_CHANGE = Long.MIN_VALUE;
+
     private final User user;
     /**
-     * When did this user made a last commit on any of our projects? Can be null.
+     * When did this user made a last commit on any of our projects, in milliseconds since the epoch?
+     * {@link #NO_CHANGE} if never.
+     */
+    private long lastChange;
+    /**
+     * {@link Job#getFullName()} of the project this user committed to, interned. Can be null.
+     * Only the name is kept so that people lists do not hold on to jobs.
+     */
+    @CheckForNull
+    private String project;
+    /**
+     * When did this user last trigger a build of any of our projects, in milliseconds since the epoch?
+     * {@link #NO_CHANGE} if never.
      */
-    protected Calendar lastChange;
+    private long lastTrigger = NO_CHANGE;
     /**
-     * Which project did this user commit? Can be null.
+     * {@link Job#getFullName()} of the project this user last triggered a build of, interned. Can be null.
      */
-    protected Job<?, ?> project;
+    @CheckForNull
+    private String triggerProject;
 
     /** @see hudson.tasks.UserAvatarResolver */
     String avatar;
 
-    UserInfo(User user, Job<?, ?> p, Calendar lastChange) {
+    UserInfo(User user, @CheckForNull String project, long lastChange) {
         this.user = user;
-        this.project = p;
+        this.project = project == null ? null : project.intern();
         this.lastChange = lastChange;
     }
 
+    /**
+     * Creates an entry for a user without any commit.
+     */
+    UserInfo(User user) {
+        this(user, null, NO_CHANGE);
+    }
+
+    /**
+     * Records a commit to the specified project, unless this user made a later one.
+     *
+     * @return whether this entry changed
+     */
+    boolean update(String project, long lastChange) {
+        if (lastChange <= this.lastChange) {
+            return false;
+        }
+        this.project = project.intern();
+        this.lastChange = lastChange;
+        return true;
+    }
+
+    /**
+     * Records a build of the specified project triggered by this user, unless they triggered a later one.
+     *
+     * @return whether this entry changed
+     */
+    boolean updateTrigger(String project, long lastTrigger) {
+        if (lastTrigger <= this.lastTrigger) {
+            return false;
+        }
+        this.triggerProject = project.intern();
+        this.lastTrigger = lastTrigger;
+        return true;
+    }
+
     @Exported
     public User getUser() {
         return user;
@@ -64,31 +123,113 @@ public class UserInfo implements Comparable<UserInfo> {
 
     @Exported
     public Calendar getLastChange() {
+        return lastChange == NO_CHANGE ? null : toCalendar(lastChange);
+    }
+
+    /**
+     * @return when this user made their last commit in milliseconds since the epoch, or {@link #NO_CHANGE}
+     */
+    long getLastChangeMillis() {
         return lastChange;
     }
 
+    @Exported
+    public Calendar getLastTrigger() {
+        return lastTrigger == NO_CHANGE ? null : toCalendar(lastTrigger);
+    }
+
+    /**
+     * @return when this user last triggered a build in milliseconds since the epoch, or {@link #NO_CHANGE}
+     */
+    long getLastTriggerMillis() {
+        return lastTrigger;
+    }
+
+    /**
+     * Counts builds of projects visible to the current user with a change by this user per week, the current week
+     * first, from {@link PeopleIndex}.
+     */
+    @Exported(visibility = 1)
+    public int[] getWeeklyActivity() {
+        UserActivity activity = PeopleIndex.get().getActivity(user.getId());
+        return activity == null
+                ? new int[UserActivity.WEEKS]
+                : activity.getWeeklyActivity(System.currentTimeMillis(), UserInfo::isVisible);
+    }
+
+    /**
+     * The projects visible to the current user this user changed most often, most frequent first, from
+     * {@link PeopleIndex}.
+     */
+    @Exported(visibility = 1)
+    public List<UserActivity.ProjectActivity> getTopProjects() {
+        UserActivity activity = PeopleIndex.get().getActivity(user.getId());
+        if (activity == null) {
+            return List.of();
+        }
+        List<UserActivity.ProjectActivity> top = activity.getTopProjects();
+        top.removeIf(project -> !isVisible(project.getName()));
+        return top;
+    }
+
+    private static boolean isVisible(String fullName) {
+        return Jenkins.get().getItemByFullName(fullName, Job.class) != null;
+    }
+
     @Deprecated
     public AbstractProject getProject() {
-        return project instanceof AbstractProject ? (AbstractProject) project : null;
+        Job<?, ?> job = getJob();
+        return job instanceof AbstractProject ? (AbstractProject) job : null;
     }
 
     @Exported(name = "project")
     public Job<?, ?> getJob() {
-        return project;
+        return getJob(project);
+    }
+
+    /**
+     * @return the project this user last triggered a build of, if any
+     */
+    @Exported
+    public Job<?, ?> getTriggerJob() {
+        return getJob(triggerProject);
+    }
+
+    private static Job<?, ?> getJob(@CheckForNull String fullName) {
+        if (fullName == null) {
+            return null;
+        }
+        // entries are only created for jobs visible to whoever asked for them
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            return Jenkins.get().getItemByFullName(fullName, Job.class);
+        }
     }
 
     /**
      * Returns a human-readable string representation of when this user was last active.
      */
     public String getLastChangeTimeString() {
-        if (lastChange == null) return "N/A";
+        if (lastChange == NO_CHANGE) return "N/A";
         long duration = new GregorianCalendar().getTimeInMillis() - ordinal();
         return Util.getTimeSpanString(duration);
     }
 
     public String getTimeSortKey() {
-        if (lastChange == null) return "-";
-        return Util.XS_DATETIME_FORMATTER2.format(lastChange.toInstant());
+        if (lastChange == NO_CHANGE) return "-";
+        return Util.XS_DATETIME_FORMATTER2.format(Instant.ofEpochMilli(lastChange));
+    }
+
+    /**
+     * Returns a human-readable string representation of when this user last triggered a build.
+     */
+    public String getLastTriggerTimeString() {
+        if (lastTrigger == NO_CHANGE) return "N/A";
+        return Util.getTimeSpanString(System.currentTimeMillis() - lastTrigger);
+    }
+
+    public String getTriggerSortKey() {
+        if (lastTrigger == NO_CHANGE) return "-";
+        return Util.XS_DATETIME_FORMATTER2.format(Instant.ofEpochMilli(lastTrigger));
     }
 
     @Override
@@ -98,8 +239,14 @@ public class UserInfo implements Comparable<UserInfo> {
         return Long.compare(rhs, lhs);
     }
 
-    private long ordinal() {
-        if (lastChange == null) return 0;
-        return lastChange.getTimeInMillis();
+    static Calendar toCalendar(long timestamp) {
+        Calendar calendar = new GregorianCalendar();
+        calendar.setTimeInMillis(timestamp);
+        return calendar;
+    }
+
+    long ordinal() {
+        if (lastChange == NO_CHANGE) return 0;
+        return lastChange;
     }
 }
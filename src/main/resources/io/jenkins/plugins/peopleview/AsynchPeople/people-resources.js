@@ -1,27 +1,77 @@
-window.display = function (data) {
-  var p = document.getElementById("people");
-  p.style.display = "";
-  var rootURL = document.head.getAttribute("data-rooturl");
-  for (var x = 0; data.length > x; x++) {
-    var e = data[x];
-    var id = "person-" + e.id;
-    var r = document.getElementById(id);
-    if (r == null) {
-      r = document.createElement("tr");
-      r.id = id;
-      p.appendChild(r);
-    } else {
-      while (r.firstChild) {
-        r.removeChild(r.firstChild);
-      }
+(function () {
+  // Entries are kept in memory, sorted once per batch received, and only the rows around the visible part of the
+  // table are rendered, with spacer rows standing in for the others.
+  var OVERSCAN = 20;
+  var DEFAULT_ROW_HEIGHT = 40;
+
+  var entries = [];
+  var entriesById = {};
+  var rowsById = {};
+  var rowHeight = 0;
+  var sortColumn = 3;
+  var sortDescending = true;
+  var renderScheduled = false;
+  var initialized = false;
+  var SAVE_DELAY = 2000;
+  var RETRY_DELAY = 1000;
+  var MAX_RETRIES = 6;
+  var retries = 0;
+  var stream = null;
+  var seq = 0;
+  var latest = null;
+  var fetching = false;
+  var saveScheduled = false;
+  var restored = false;
+  // the budget the server stopped computing people at, if any
+  var partial = false;
+
+  var sortKeys = [
+    null,
+    function (e) {
+      return e.id.toLowerCase();
+    },
+    function (e) {
+      return (e.fullName || "").toLowerCase();
+    },
+    function (e) {
+      return e.timeSortKey;
+    },
+    function (e) {
+      return (e.projectFullDisplayName || "").toLowerCase();
+    },
+    function (e) {
+      return e.triggerSortKey || "-";
+    },
+  ];
+
+  function compare(a, b) {
+    var key = sortKeys[sortColumn];
+    var ka = key(a);
+    var kb = key(b);
+    var c = ka < kb ? -1 : ka > kb ? 1 : 0;
+    if (c === 0) {
+      c = a.id < b.id ? -1 : a.id > b.id ? 1 : 0;
     }
+    return sortDescending ? -c : c;
+  }
+
+  function createRow(e, table, rootURL, icon) {
+    var r = document.createElement("tr");
+    r.id = "person-" + e.id;
 
     var d = document.createElement("td");
     var wrapper = document.createElement("div");
     wrapper.className = "jenkins-table__cell__button-wrapper";
     d.className = "jenkins-table__cell--tight jenkins-table__icon";
-    var icon = document.getElementById("person-circle");
-    wrapper.innerHTML = icon.children[0].outerHTML;
+    if (e.avatar) {
+      var img = document.createElement("img");
+      img.src = e.avatar;
+      img.alt = "";
+      img.width = img.height = parseInt(table.getAttribute("data-icon-size"), 10);
+      wrapper.appendChild(img);
+    } else {
+      wrapper.appendChild(icon.cloneNode(true));
+    }
     d.appendChild(wrapper);
     r.appendChild(d);
 
@@ -52,6 +102,253 @@ window.display = function (data) {
     }
     r.appendChild(d);
 
-    ts_refresh(p);
+    d = document.createElement("td");
+    d.setAttribute("data", e.triggerSortKey || "-");
+    d.appendChild(document.createTextNode(e.lastTriggerTimeString || "N/A"));
+    r.appendChild(d);
+    return r;
   }
-};
+
+  function createSpacer(height) {
+    var r = document.createElement("tr");
+    var d = document.createElement("td");
+    d.colSpan = 6;
+    d.style.height = height + "px";
+    d.style.padding = "0";
+    d.style.border = "0";
+    r.appendChild(d);
+    return r;
+  }
+
+  function render() {
+    renderScheduled = false;
+    var table = document.getElementById("people");
+    var tbody = table.tBodies[0];
+    var rootURL = document.head.getAttribute("data-rooturl");
+    var icon = document.getElementById("person-circle").children[0];
+
+    var height = rowHeight || DEFAULT_ROW_HEIGHT;
+    var offset = Math.max(0, -tbody.getBoundingClientRect().top);
+    var first = Math.max(0, Math.floor(offset / height) - OVERSCAN);
+    var last = Math.min(entries.length, Math.ceil((offset + window.innerHeight) / height) + OVERSCAN);
+
+    var fragment = document.createDocumentFragment();
+    if (first > 0) {
+      fragment.appendChild(createSpacer(first * height));
+    }
+    for (var i = first; i < last; i++) {
+      var e = entries[i];
+      var r = rowsById[e.id];
+      if (r == null) {
+        r = rowsById[e.id] = createRow(e, table, rootURL, icon);
+      }
+      fragment.appendChild(r);
+    }
+    if (last < entries.length) {
+      fragment.appendChild(createSpacer((entries.length - last) * height));
+    }
+    while (tbody.firstChild) {
+      tbody.removeChild(tbody.firstChild);
+    }
+    tbody.appendChild(fragment);
+
+    if (!rowHeight && last > first && rowsById[entries[first].id].offsetHeight > 0) {
+      rowHeight = rowsById[entries[first].id].offsetHeight;
+      scheduleRender();
+    }
+  }
+
+  function scheduleRender() {
+    if (!renderScheduled) {
+      renderScheduled = true;
+      window.requestAnimationFrame(render);
+    }
+  }
+
+  function updateSortIndicators(headers) {
+    for (var i = 1; i < headers.length; i++) {
+      if (i === sortColumn) {
+        headers[i].setAttribute("aria-sort", sortDescending ? "descending" : "ascending");
+      } else {
+        headers[i].removeAttribute("aria-sort");
+      }
+    }
+  }
+
+  function initialize(table) {
+    initialized = true;
+    var headers = table.tHead.rows[0].cells;
+    for (var i = 1; i < headers.length; i++) {
+      (function (column) {
+        headers[column].style.cursor = "pointer";
+        headers[column].addEventListener("click", function () {
+          if (sortColumn === column) {
+            sortDescending = !sortDescending;
+          } else {
+            sortColumn = column;
+            sortDescending = false;
+          }
+          updateSortIndicators(headers);
+          entries.sort(compare);
+          scheduleRender();
+        });
+      })(i);
+    }
+    updateSortIndicators(headers);
+    window.addEventListener("scroll", scheduleRender, { passive: true });
+    window.addEventListener("resize", scheduleRender);
+  }
+
+  function clear() {
+    entries = [];
+    entriesById = {};
+    rowsById = {};
+  }
+
+  function apply(data) {
+    for (var x = 0; data.length > x; x++) {
+      var e = data[x];
+      var entry = entriesById[e.id];
+      if (entry == null) {
+        entry = entriesById[e.id] = {};
+        entries.push(entry);
+      } else {
+        for (var k in entry) {
+          delete entry[k];
+        }
+      }
+      for (var key in e) {
+        entry[key] = e[key];
+      }
+      delete rowsById[e.id];
+    }
+    entries.sort(compare);
+    scheduleRender();
+  }
+
+  function showNotice(id, visible) {
+    document.getElementById(id).style.display = visible ? "" : "none";
+  }
+
+  // Shown when the server stopped computing people at a budget, so that some may be missing.
+  function showPartial() {
+    ["time", "builds", "entries"].forEach(function (budget) {
+      showNotice("people-partial-" + budget, partial === budget);
+    });
+  }
+
+  function show() {
+    var table = document.getElementById("people");
+    table.style.display = "";
+    if (!initialized) {
+      initialize(table);
+    }
+    return table;
+  }
+
+  // Entries received so far are kept for the session, so that a reloaded page resumes from the last sequence number
+  // received instead of starting over.
+  function storageKey() {
+    return "people:" + window.location.pathname;
+  }
+
+  function save() {
+    saveScheduled = false;
+    try {
+      window.sessionStorage.setItem(
+        storageKey(),
+        JSON.stringify({ stream: stream, seq: seq, partial: partial, entries: entries })
+      );
+    } catch (e) {
+      // quota exceeded or storage unavailable; the page will start over when reloaded
+      try {
+        window.sessionStorage.removeItem(storageKey());
+      } catch (ignored) {
+        // nothing to do
+      }
+    }
+  }
+
+  function scheduleSave() {
+    if (!saveScheduled) {
+      saveScheduled = true;
+      window.setTimeout(save, SAVE_DELAY);
+    }
+  }
+
+  function restore() {
+    try {
+      var saved = JSON.parse(window.sessionStorage.getItem(storageKey()));
+      if (saved && saved.stream) {
+        stream = saved.stream;
+        seq = saved.seq;
+        partial = saved.partial || false;
+        show();
+        showPartial();
+        apply(saved.entries);
+      }
+    } catch (e) {
+      // ignore unreadable state
+    }
+  }
+
+  function fetchDelta(table, id) {
+    fetching = true;
+    var since = id === stream ? seq : 0;
+    fetch(table.getAttribute("data-delta-url") + "?stream=" + encodeURIComponent(id) + "&since=" + since)
+      .then(function (rsp) {
+        if (!rsp.ok) {
+          throw new Error(rsp.status);
+        }
+        return rsp.json();
+      })
+      .then(function (delta) {
+        if (delta.reset || delta.stream !== stream) {
+          clear();
+          stream = delta.stream;
+        }
+        seq = delta.seq;
+        partial = delta.partial ? delta.exceeded || "time" : false;
+        showPartial();
+        apply(delta.entries);
+        scheduleSave();
+      })
+      .then(
+        function () {
+          fetching = false;
+          retries = 0;
+          if (latest.stream !== stream || latest.seq > seq) {
+            fetchDelta(table, latest.stream);
+          }
+        },
+        function () {
+          // no further notification may come once the computation completed, so retry with backoff
+          if (retries >= MAX_RETRIES) {
+            fetching = false;
+            return;
+          }
+          window.setTimeout(function () {
+            fetchDelta(table, latest.stream);
+          }, RETRY_DELAY * Math.pow(2, retries++));
+        }
+      );
+  }
+
+  window.display = function (data) {
+    if (!restored) {
+      restored = true;
+      restore();
+    }
+    var table = show();
+    // the server only admits so many computations at once
+    showNotice("people-queued", data.queued > 0);
+    showNotice("people-rejected", data.rejected === true);
+    if (data.stream == null) {
+      return;
+    }
+    latest = data;
+    if (!fetching && (data.stream !== stream || data.seq > seq)) {
+      fetchDelta(table, data.stream);
+    }
+  };
+})();
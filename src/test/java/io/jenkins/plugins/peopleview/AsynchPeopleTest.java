@@ -24,13 +24,24 @@
 package io.jenkins.plugins.peopleview;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import hudson.model.FreeStyleProject;
+import hudson.model.ListView;
 import hudson.model.User;
+import java.net.URL;
+import java.util.Map;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
 import org.htmlunit.html.DomElement;
 import org.htmlunit.html.HtmlPage;
 import org.junit.Rule;
 import org.junit.Test;
+import org.jvnet.hudson.test.FakeChangeLogSCM;
 import org.jvnet.hudson.test.For;
 import org.jvnet.hudson.test.Issue;
 import org.jvnet.hudson.test.JenkinsRule;
@@ -62,4 +73,136 @@ public class AsynchPeopleTest {
         assertNotNull(page.getElementById("person-bob"));
         */
     }
+
+    @Test
+    public void page() throws Exception {
+        User.getById("alice", true);
+        User.getById("bob", true);
+        User.getById("carol", true);
+        JenkinsRule.WebClient wc = j.createWebClient();
+
+        JSONObject first = JSONObject.fromObject(
+                wc.goTo("asynchPeople/page?limit=2", "application/json").getWebResponse().getContentAsString());
+        JSONArray users = first.getJSONArray("users");
+        assertEquals(2, users.size());
+        assertEquals("alice", users.getJSONObject(0).getString("id"));
+        assertEquals("bob", users.getJSONObject(1).getString("id"));
+        assertTrue(first.has("nextCursor"));
+
+        JSONObject second = JSONObject.fromObject(wc.goTo(
+                        "asynchPeople/page?limit=2&cursor=" + first.getString("nextCursor"), "application/json")
+                .getWebResponse()
+                .getContentAsString());
+        users = second.getJSONArray("users");
+        assertEquals(1, users.size());
+        assertEquals("carol", users.getJSONObject(0).getString("id"));
+        assertFalse(second.has("nextCursor"));
+    }
+
+    @Test
+    public void laterPagesSlicedFromCollectedPeople() throws Exception {
+        for (String id : new String[] {"alice", "bob", "carol", "dave", "erin"}) {
+            User.getById(id, true);
+        }
+        JenkinsRule.WebClient wc = j.createWebClient();
+
+        JSONObject first = JSONObject.fromObject(
+                wc.goTo("asynchPeople/page?limit=2", "application/json").getWebResponse().getContentAsString());
+        long enumerations = ScanMetrics.toJSON().getJSONObject("userEnumeration").getLong("count");
+        JSONObject second = JSONObject.fromObject(wc.goTo(
+                        "asynchPeople/page?limit=2&cursor=" + first.getString("nextCursor"), "application/json")
+                .getWebResponse()
+                .getContentAsString());
+        JSONArray users = second.getJSONArray("users");
+        assertEquals(2, users.size());
+        assertEquals("carol", users.getJSONObject(0).getString("id"));
+        assertEquals("dave", users.getJSONObject(1).getString("id"));
+        // all users were enumerated for the first page only
+        assertEquals(enumerations, ScanMetrics.toJSON().getJSONObject("userEnumeration").getLong("count"));
+    }
+
+    @Test
+    public void search() throws Exception {
+        User.getById("alice", true).setFullName("Alice Smith");
+        User.getById("bob", true).setFullName("Robert Smithson");
+        User.getById("carol", true).setFullName("Carol Jones");
+        JenkinsRule.WebClient wc = j.createWebClient();
+
+        JSONArray users = JSONObject.fromObject(wc.goTo("asynchPeople/page?q=SMITH&sort=fullName", "application/json")
+                        .getWebResponse()
+                        .getContentAsString())
+                .getJSONArray("users");
+        assertEquals(2, users.size());
+        assertEquals("alice", users.getJSONObject(0).getString("id"));
+        assertEquals("bob", users.getJSONObject(1).getString("id"));
+
+        users = JSONObject.fromObject(wc.goTo("asynchPeople/page?q=car", "application/json")
+                        .getWebResponse()
+                        .getContentAsString())
+                .getJSONArray("users");
+        assertEquals(1, users.size());
+        assertEquals("carol", users.getJSONObject(0).getString("id"));
+
+        users = JSONObject.fromObject(wc.goTo("asynchPeople/page?since=1", "application/json")
+                        .getWebResponse()
+                        .getContentAsString())
+                .getJSONArray("users");
+        assertEquals(0, users.size());
+    }
+
+    @Test
+    public void conditionalApi() throws Exception {
+        User.getById("alice", true).setFullName("Alice Smith");
+        JenkinsRule.WebClient wc = j.createWebClient();
+
+        WebResponse first = wc.goTo("asynchPeople/api/json", "application/json").getWebResponse();
+        String etag = first.getResponseHeaderValue("ETag");
+        assertNotNull(etag);
+
+        WebRequest request = new WebRequest(new URL(j.getURL(), "asynchPeople/api/json"));
+        request.setAdditionalHeader("If-None-Match", etag);
+        assertEquals(304, wc.getPage(request).getWebResponse().getStatusCode());
+
+        User.getById("alice", false).setFullName("Alice Jones");
+        WebResponse changed = wc.getPage(request).getWebResponse();
+        assertEquals(200, changed.getStatusCode());
+        assertTrue(changed.getContentAsString().contains("Alice Jones"));
+
+        request = new WebRequest(new URL(j.getURL(), "asynchPeople/api/json?tree=users[user[id]]"));
+        request.setAdditionalHeader("If-None-Match", changed.getResponseHeaderValue("ETag"));
+        assertEquals(200, wc.getPage(request).getWebResponse().getStatusCode());
+    }
+
+    @Test
+    public void conditionalRequestsAfterBuild() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        FakeChangeLogSCM scm = new FakeChangeLogSCM();
+        scm.addChange().withAuthor("alice").withMsg("first");
+        p.setScm(scm);
+        j.buildAndAssertSuccess(p);
+        ListView view = new ListView("v", j.jenkins);
+        j.jenkins.addView(view);
+        view.add(p);
+        JenkinsRule.WebClient wc = j.createWebClient();
+
+        Map<String, String> newAuthors = Map.of(
+                "view/v/asynchPeople/api/json?tree=users[user[id]]", "bob", "view/v/asynchPeople/page", "carol");
+        for (Map.Entry<String, String> newAuthor : newAuthors.entrySet()) {
+            String path = newAuthor.getKey();
+            WebResponse first = wc.goTo(path, "application/json").getWebResponse();
+            assertFalse(first.getContentAsString().contains(newAuthor.getValue()));
+
+            scm.addChange().withAuthor(newAuthor.getValue()).withMsg("second");
+            j.buildAndAssertSuccess(p);
+            j.waitUntilNoActivity();
+            WebRequest request = new WebRequest(new URL(j.getURL(), path));
+            request.setAdditionalHeader("If-None-Match", first.getResponseHeaderValue("ETag"));
+            WebResponse changed = wc.getPage(request).getWebResponse();
+            assertEquals(200, changed.getStatusCode());
+            assertTrue(changed.getContentAsString().contains(newAuthor.getValue()));
+
+            request.setAdditionalHeader("If-None-Match", changed.getResponseHeaderValue("ETag"));
+            assertEquals(304, wc.getPage(request).getWebResponse().getStatusCode());
+        }
+    }
 }
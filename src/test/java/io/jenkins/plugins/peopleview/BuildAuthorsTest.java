@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import hudson.model.Cause;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.User;
+import java.io.File;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FakeChangeLogSCM;
+import org.jvnet.hudson.test.For;
+import org.jvnet.hudson.test.JenkinsRule;
+
+@For(BuildAuthors.class)
+public class BuildAuthorsTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void writtenWhenBuildCompletes() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        FakeChangeLogSCM scm = new FakeChangeLogSCM();
+        scm.addChange().withAuthor("alice").withMsg("first");
+        scm.addChange().withAuthor("bob").withMsg("second");
+        p.setScm(scm);
+        FreeStyleBuild b = j.buildAndAssertSuccess(p);
+
+        BuildAuthors authors = BuildAuthors.read(b.getNumber(), b.getRootDir());
+        assertNotNull(authors);
+        assertEquals(b.getTimeInMillis(), authors.timestamp);
+        assertEquals(List.of("alice", "bob"), authors.authors);
+    }
+
+    @Test
+    public void triggerersRecordedWithAuthors() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        FakeChangeLogSCM scm = new FakeChangeLogSCM();
+        scm.addChange().withAuthor("alice").withMsg("first");
+        p.setScm(scm);
+        User.getById("dave", true);
+        FreeStyleBuild b = j.assertBuildStatusSuccess(p.scheduleBuild2(0, new Cause.UserIdCause("dave")));
+
+        BuildAuthors authors = BuildAuthors.read(b.getNumber(), b.getRootDir());
+        assertNotNull(authors);
+        assertEquals(List.of("alice"), authors.authors);
+        assertEquals(List.of("dave"), authors.triggerers);
+
+        UserInfo dave = PeopleIndexTest.getUserInfo(PeopleIndex.get(), j.jenkins.getItems())
+                .get(User.getById("dave", false));
+        assertNotNull(dave);
+        assertEquals(b.getTimeInMillis(), dave.getLastTriggerMillis());
+        assertEquals(UserInfo.NO_CHANGE, dave.getLastChangeMillis());
+    }
+
+    @Test
+    public void unknownTriggerersNotCreated() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0, new Cause.UserIdCause("ghost")));
+
+        assertTrue(PeopleIndexTest.getUserInfo(PeopleIndex.get(), j.jenkins.getItems()).isEmpty());
+        assertNull(User.getById("ghost", false));
+    }
+
+    @Test
+    public void backfilledWhenMissing() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        FakeChangeLogSCM scm = new FakeChangeLogSCM();
+        scm.addChange().withAuthor("carol").withMsg("first");
+        p.setScm(scm);
+        FreeStyleBuild b = j.buildAndAssertSuccess(p);
+        File file = new File(b.getRootDir(), BuildAuthors.FILE_NAME);
+        assertTrue(file.delete());
+
+        List<BuildAuthors> all = BuildAuthors.getAll(p, 0);
+        assertEquals(1, all.size());
+        assertEquals(List.of("carol"), all.get(0).authors);
+        assertTrue(file.exists());
+
+        assertTrue(BuildAuthors.getAll(p, b.getTimeInMillis() + 1).isEmpty());
+        assertFalse(BuildAuthors.read(b.getNumber(), b.getRootDir()).authors.isEmpty());
+    }
+
+    @Test
+    public void buildsBeyondHorizonNotLoaded() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        FreeStyleBuild first = j.buildAndAssertSuccess(p);
+        j.buildAndAssertSuccess(p);
+        FreeStyleBuild last = j.buildAndAssertSuccess(p);
+        assertTrue(new File(first.getRootDir(), BuildAuthors.FILE_NAME).delete());
+        p._getRuns().purgeCache();
+
+        List<BuildAuthors> recent = BuildAuthors.getAll(p, last.getTimeInMillis());
+        assertEquals(1, recent.size());
+        assertEquals(last.getNumber(), recent.get(0).number);
+        assertFalse(p._getRuns().getLoadedBuilds().containsKey(first.getNumber()));
+    }
+}
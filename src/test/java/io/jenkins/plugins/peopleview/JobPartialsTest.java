@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.User;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.For;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MemoryAssert;
+import org.jvnet.hudson.test.MockFolder;
+
+@For(JobPartials.class)
+public class JobPartialsTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void watermarkFollowsBuilds() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        j.buildAndAssertSuccess(p);
+        User alice = User.getById("alice", true);
+        User bob = User.getById("bob", true);
+        JobPartials.Partial partial =
+                new JobPartials.Partial(1, 0, Map.of(alice, 1000L, bob, 3000L), Map.of(alice, 2000L));
+        JobPartials.put(p, partial, JobPartials.generation());
+        assertSame(partial, JobPartials.get(p));
+        assertTrue(partial.isCurrent(p));
+
+        PeopleSnapshot.JobAuthors recent = partial.toJobAuthors(p, 2000);
+        assertEquals(Map.of(bob, 3000L), recent.lastChanges);
+        assertEquals(Map.of(alice, 2000L), recent.lastTriggers);
+        assertEquals(2, partial.toJobAuthors(p, 0).lastChanges.size());
+        assertTrue(partial.covers(2000));
+        assertFalse(new JobPartials.Partial(1, 2000, Map.of(), Map.of()).covers(1000));
+
+        j.buildAndAssertSuccess(p);
+        assertFalse(JobPartials.get(p).isCurrent(p));
+        assertEquals(1, JobPartials.get(p).watermark);
+
+        p.getLastBuild().delete();
+        assertNull(JobPartials.get(p));
+    }
+
+    @Test
+    public void subtreeKeptUntilSomethingChangesWithin() throws Exception {
+        MockFolder folder = j.createFolder("folder");
+        FreeStyleProject p = folder.createProject(FreeStyleProject.class, "p");
+        long generation = JobPartials.generation();
+        JobPartials.putSubtree(folder, List.of(p), generation);
+        assertEquals(List.of(p), JobPartials.getSubtree(folder));
+
+        JobPartials.put(p, new JobPartials.Partial(0, 0, Map.of(), Map.of()), generation);
+        j.buildAndAssertSuccess(p);
+        assertNull(JobPartials.getSubtree(folder));
+
+        JobPartials.putSubtree(folder, List.of(p), JobPartials.generation());
+        assertEquals(List.of(p), JobPartials.getSubtree(folder));
+        folder.createProject(FreeStyleProject.class, "q");
+        assertNull(JobPartials.getSubtree(folder));
+    }
+
+    @Test
+    public void subtreeDoesNotRetainItem() throws Exception {
+        FreeStyleProject p = new FreeStyleProject(j.jenkins, "detached");
+        JobPartials.putSubtree(p, List.of(p), JobPartials.generation());
+        WeakReference<FreeStyleProject> reference = new WeakReference<>(p);
+        p = null;
+        MemoryAssert.assertGC(reference, false);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Job;
+import hudson.model.User;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.Jenkins;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Aggregation of people from {@link PeopleIndex}, sorting and JSON serialization, on synthetic data recorded directly
+ * into the index so that large scales do not require running builds.
+ */
+@JmhBenchmark
+public class PeopleAggregationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SyntheticPeople extends JmhBenchmarkState {
+
+        @Param({"10", "100", "1000", "10000"})
+        public int jobs;
+
+        @Param({"100", "1000", "10000", "100000"})
+        public int users;
+
+        List<UserInfo> userInfo;
+
+        /** {@link #userInfo} sorted by last change, as pages are sliced from. */
+        List<UserInfo> sortedUserInfo;
+
+        @Override
+        public void setup() throws Exception {
+            Jenkins jenkins = getJenkins();
+            PeopleViewConfiguration.get().setSnapshotTtlSeconds(0);
+            PeopleIndex index = PeopleIndex.get();
+            List<Job<?, ?>> projects = new ArrayList<>();
+            for (int i = 0; i < jobs; i++) {
+                projects.add(jenkins.createProject(FreeStyleProject.class, "job" + i));
+            }
+            index.rebuild();
+
+            // every user authored changes in two jobs on average, at random times in the last year
+            Random random = new Random(42);
+            long now = System.currentTimeMillis();
+            for (int u = 0; u < users; u++) {
+                String id = "user" + u;
+                User.getById(id, true);
+                for (int n = 0; n < 2; n++) {
+                    Job<?, ?> job = projects.get(random.nextInt(jobs));
+                    long timestamp = now - (long) random.nextInt(365 * 24 * 60) * 60_000L;
+                    index.record(job, 1, timestamp, List.of(id), List.of());
+                }
+            }
+            sortedUserInfo = new ArrayList<>(new People(jenkins).users);
+            sortedUserInfo.sort(PeoplePage.Sort.LAST_CHANGE.order);
+            userInfo = new ArrayList<>(sortedUserInfo);
+            Collections.shuffle(userInfo, random);
+        }
+    }
+
+    /** Merges the per-job authors of the index for the whole controller and sorts them, as {@code People} does. */
+    @Benchmark
+    public List<UserInfo> merge(SyntheticPeople state) {
+        return new People(JmhBenchmarkState.getJenkins()).users;
+    }
+
+    /** Sorts all people by last change, as {@code People} does. */
+    @Benchmark
+    public List<UserInfo> sort(SyntheticPeople state) {
+        List<UserInfo> list = new ArrayList<>(state.userInfo);
+        Collections.sort(list);
+        return list;
+    }
+
+    /** Selects the first page of people sorted by last change. */
+    @Benchmark
+    public List<UserInfo> firstPage(SyntheticPeople state) {
+        return new PeoplePage(null, PeoplePage.DEFAULT_LIMIT, PeoplePage.Sort.LAST_CHANGE)
+                .select(state.sortedUserInfo);
+    }
+
+    /** Serializes the largest page of people as JSON. */
+    @Benchmark
+    public void serializeLargestPage(SyntheticPeople state) throws Exception {
+        new PeoplePage(null, PeoplePage.MAX_LIMIT, PeoplePage.Sort.LAST_CHANGE)
+                .write(state.sortedUserInfo, 1, Writer.nullWriter());
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.User;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FakeChangeLogSCM;
+import org.jvnet.hudson.test.For;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockFolder;
+
+@For(PeopleIndex.class)
+public class PeopleIndexTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void recordsAuthorsOfCompletedBuilds() throws Exception {
+        PeopleIndex index = PeopleIndex.get();
+        index.rebuild();
+        assertTrue(index.isReady());
+
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        FakeChangeLogSCM scm = new FakeChangeLogSCM();
+        scm.addChange().withAuthor("alice").withMsg("first");
+        p.setScm(scm);
+        j.buildAndAssertSuccess(p);
+
+        Map<User, UserInfo> users = getUserInfo(index, j.jenkins.getItems());
+        UserInfo alice = users.get(User.getById("alice", false));
+        assertNotNull(alice);
+        assertEquals(p, alice.getJob());
+        assertEquals(p.getLastBuild().getTimeInMillis(), alice.getLastChange().getTimeInMillis());
+    }
+
+    @Test
+    public void followsRenamesAndDeletions() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        FakeChangeLogSCM scm = new FakeChangeLogSCM();
+        scm.addChange().withAuthor("bob").withMsg("first");
+        p.setScm(scm);
+        j.buildAndAssertSuccess(p);
+
+        PeopleIndex index = PeopleIndex.get();
+        index.rebuild();
+        p.renameTo("q");
+        UserInfo bob = getUserInfo(index, j.jenkins.getItems()).get(User.getById("bob", false));
+        assertNotNull(bob);
+        assertEquals("q", bob.getJob().getFullName());
+
+        p.delete();
+        assertTrue(getUserInfo(index, j.jenkins.getItems()).isEmpty());
+    }
+
+    @Test
+    public void forgetsDeletedBuilds() throws Exception {
+        PeopleIndex index = PeopleIndex.get();
+        index.rebuild();
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        FakeChangeLogSCM scm = new FakeChangeLogSCM();
+        scm.addChange().withAuthor("alice").withMsg("first");
+        p.setScm(scm);
+        FreeStyleBuild first = j.buildAndAssertSuccess(p);
+        scm.addChange().withAuthor("bob").withMsg("second");
+        j.buildAndAssertSuccess(p).delete();
+
+        User bob = User.getById("bob", false);
+        while (getUserInfo(index, j.jenkins.getItems()).containsKey(bob)) {
+            // forgotten in the background
+            Thread.sleep(100);
+        }
+        UserInfo alice = getUserInfo(index, j.jenkins.getItems()).get(User.getById("alice", false));
+        assertEquals(first.getTimeInMillis(), alice.getLastChangeMillis());
+        assertTrue(index.hasAuthors(p));
+    }
+
+    @Test
+    public void keepsBuildsRecordedWhileForgetting() {
+        PeopleIndex.JobRecord record = new PeopleIndex.JobRecord();
+        record.record(1, 1000, List.of("alice"), List.of());
+        record.record(2, 2000, List.of("alice", "bob"), List.of());
+        BuildAuthors deleted = new BuildAuthors(2, 2000, List.of("alice", "bob"), List.of());
+        assertTrue(record.isLatest(deleted));
+        assertFalse(record.isLatest(new BuildAuthors(1, 1000, List.of("alice"), List.of())));
+        PeopleIndex.JobRecord remaining = new PeopleIndex.JobRecord();
+        remaining.record(1, 1000, List.of("alice"), List.of());
+        // completed after the remaining builds were read
+        record.record(3, 3000, List.of("bob"), List.of());
+
+        assertFalse(record.forget(deleted, remaining));
+        assertEquals(Map.of("alice", 1000L, "bob", 3000L), record.getAuthors());
+    }
+
+    @Test
+    public void aggregatesActivity() throws Exception {
+        PeopleIndex index = PeopleIndex.get();
+        index.rebuild();
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        FakeChangeLogSCM scm = new FakeChangeLogSCM();
+        scm.addChange().withAuthor("alice").withMsg("first");
+        p.setScm(scm);
+        j.buildAndAssertSuccess(p);
+        j.buildAndAssertSuccess(p);
+
+        UserInfo alice = getUserInfo(index, j.jenkins.getItems()).get(User.getById("alice", false));
+        assertEquals(2, alice.getWeeklyActivity()[0]);
+        assertEquals(1, alice.getTopProjects().size());
+        assertEquals("p", alice.getTopProjects().get(0).getName());
+        assertEquals(2, alice.getTopProjects().get(0).getBuilds());
+
+        index.rebuild();
+        assertEquals(2, alice.getWeeklyActivity()[0]);
+        p.renameTo("q");
+        assertEquals("q", alice.getTopProjects().get(0).getName());
+    }
+
+    @Test
+    public void ringBufferKeepsRecentWeeks() {
+        UserActivity activity = new UserActivity();
+        long week = TimeUnit.DAYS.toMillis(7);
+        activity.record("p", 0);
+        activity.record("p", week);
+        activity.record("p", week);
+        assertEquals(2, activity.getWeeklyActivity(week, p -> true)[0]);
+        assertEquals(1, activity.getWeeklyActivity(week, p -> true)[1]);
+        activity.record("q", (UserActivity.WEEKS + 1) * week);
+        int[] counts = activity.getWeeklyActivity((UserActivity.WEEKS + 1) * week, p -> true);
+        // the buckets of the first weeks were reused
+        assertEquals(1, counts[0]);
+        assertEquals(1, Arrays.stream(counts).sum());
+    }
+
+    @Test
+    public void weeklyActivityFilteredByProject() {
+        UserActivity activity = new UserActivity();
+        activity.record("visible", 0);
+        activity.record("hidden", 0);
+        activity.record("hidden", 0);
+        assertEquals(1, activity.getWeeklyActivity(0, "visible"::equals)[0]);
+        assertEquals(3, activity.getWeeklyActivity(0, p -> true)[0]);
+        activity.rename("hidden", "visible");
+        assertEquals(3, activity.getWeeklyActivity(0, "visible"::equals)[0]);
+    }
+
+    @Test
+    public void restoresBinarySnapshotAndCatchesUp() throws Exception {
+        PeopleIndex index = PeopleIndex.get();
+        index.rebuild();
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        FakeChangeLogSCM scm = new FakeChangeLogSCM();
+        scm.addChange().withAuthor("alice").withMsg("first");
+        p.setScm(scm);
+        j.buildAndAssertSuccess(p);
+        index.save();
+
+        scm.addChange().withAuthor("bob").withMsg("second");
+        j.buildAndAssertSuccess(p);
+
+        PeopleIndex restored = new PeopleIndex();
+        restored.load();
+        assertTrue(restored.isReady());
+        Map<User, UserInfo> users = getUserInfo(restored, j.jenkins.getItems());
+        assertTrue(users.containsKey(User.getById("alice", false)));
+        assertFalse(users.containsKey(User.getById("bob", false)));
+        assertEquals(1, restored.getActivity("alice").getWeeklyActivity(System.currentTimeMillis(), p -> true)[0]);
+
+        assertEquals(1, restored.catchUp());
+        assertTrue(getUserInfo(restored, j.jenkins.getItems()).containsKey(User.getById("bob", false)));
+        assertEquals(0, restored.catchUp());
+    }
+
+    @Test
+    public void knowsWhichJobsHaveAuthors() throws Exception {
+        PeopleIndex index = PeopleIndex.get();
+        index.rebuild();
+        FreeStyleProject withoutScm = j.createFreeStyleProject("withoutScm");
+        j.buildAndAssertSuccess(withoutScm);
+        assertFalse(index.hasAuthors());
+        assertFalse(People.hasAuthors(j.jenkins.getItems()));
+
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        FakeChangeLogSCM scm = new FakeChangeLogSCM();
+        scm.addChange().withAuthor("alice").withMsg("first");
+        p.setScm(scm);
+        j.buildAndAssertSuccess(p);
+        assertTrue(index.hasAuthors(p));
+        assertFalse(index.hasAuthors(withoutScm));
+        assertTrue(People.hasAuthors());
+        assertTrue(People.hasAuthors(j.jenkins.getItems()));
+        assertFalse(People.hasAuthors(List.of(withoutScm)));
+
+        p.delete();
+        assertFalse(index.hasAuthors());
+    }
+
+    @Test
+    public void knowsWhichFoldersHaveAuthors() throws Exception {
+        PeopleIndex index = PeopleIndex.get();
+        index.rebuild();
+        MockFolder outer = j.createFolder("outer");
+        MockFolder inner = outer.createProject(MockFolder.class, "inner");
+        MockFolder empty = j.createFolder("empty");
+        FreeStyleProject p = inner.createProject(FreeStyleProject.class, "p");
+        FakeChangeLogSCM scm = new FakeChangeLogSCM();
+        scm.addChange().withAuthor("alice").withMsg("first");
+        p.setScm(scm);
+        j.buildAndAssertSuccess(p);
+        assertTrue(index.hasAuthors(outer));
+        assertTrue(index.hasAuthors(inner));
+        assertFalse(index.hasAuthors(empty));
+        assertFalse(People.hasAuthors(List.of(empty)));
+
+        inner.renameTo("renamed");
+        assertTrue(index.hasAuthors(inner));
+        assertTrue(index.hasAuthors(outer));
+        j.jenkins.getItemByFullName("outer/renamed/p", FreeStyleProject.class).delete();
+        assertFalse(index.hasAuthors(inner));
+        assertFalse(People.hasAuthors(List.of(outer)));
+    }
+
+    @Test
+    public void reportsFirstAuthorsOnce() {
+        PeopleIndex.JobRecord record = new PeopleIndex.JobRecord();
+        assertEquals(PeopleIndex.JobRecord.Change.CHANGED, record.record(1, 1000, List.of(), List.of("dave")));
+        assertEquals(PeopleIndex.JobRecord.Change.FIRST_AUTHORS, record.record(2, 2000, List.of("alice"), List.of()));
+        assertEquals(PeopleIndex.JobRecord.Change.CHANGED, record.record(3, 3000, List.of("bob"), List.of()));
+        assertEquals(PeopleIndex.JobRecord.Change.NONE, record.record(3, 3000, List.of("bob"), List.of()));
+    }
+
+    /**
+     * Collects the authors of changes in and the triggerers of builds of the jobs contained in the specified items
+     * from the index, as scans do when it is ready.
+     */
+    static Map<User, UserInfo> getUserInfo(PeopleIndex index, Collection<? extends Item> items) {
+        long since = PeopleViewConfiguration.get().getActivityHorizonStart();
+        Map<User, UserInfo> users = new HashMap<>();
+        for (Item item : items) {
+            for (Job<?, ?> job : item.getAllJobs()) {
+                for (Map.Entry<User, Long> author : index.getLastChanges(job, since).entrySet()) {
+                    UserInfo info = users.get(author.getKey());
+                    if (info == null) {
+                        users.put(author.getKey(), new UserInfo(author.getKey(), job.getFullName(), author.getValue()));
+                    } else {
+                        info.update(job.getFullName(), author.getValue());
+                    }
+                }
+                for (Map.Entry<User, Long> triggerer : index.getLastTriggers(job, since).entrySet()) {
+                    users.computeIfAbsent(triggerer.getKey(), UserInfo::new)
+                            .updateTrigger(job.getFullName(), triggerer.getValue());
+                }
+            }
+        }
+        return users;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.ListView;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FakeChangeLogSCM;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockFolder;
+import org.jvnet.hudson.test.recipes.WithTimeout;
+
+/**
+ * Scale and soak test of the people view: thousands of jobs with synthetic changelogs, loaded concurrently through
+ * {@code asynchPeople/} pages and the remote API, with ceilings on scan time, peak heap and builds loaded, so that
+ * regressions at scale fail the build.
+ * Not run as part of the regular tests, since generating the builds takes minutes; use {@code mvn test -Dscale}.
+ * Sizes and ceilings are set through the {@code scale.*} system properties below, e.g. {@code -Dscale.jobs=5000}.
+ */
+public class PeopleScaleSuite {
+
+    private static final Logger LOGGER = Logger.getLogger(PeopleScaleSuite.class.getName());
+
+    private static final int JOBS = Integer.getInteger("scale.jobs", 2000);
+    private static final int JOBS_PER_FOLDER = Integer.getInteger("scale.jobsPerFolder", 100);
+    private static final int BUILDS_PER_JOB = Integer.getInteger("scale.buildsPerJob", 5);
+    private static final int CHANGES_PER_BUILD = Integer.getInteger("scale.changesPerBuild", 3);
+    private static final int USERS = Integer.getInteger("scale.users", 500);
+    private static final int CLIENTS = Integer.getInteger("scale.clients", 16);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("scale.requestsPerClient", 30);
+    private static final int SOAK_ROUNDS = Integer.getInteger("scale.soakRounds", 5);
+
+    private static final long MAX_REBUILD_MILLIS = Long.getLong("scale.maxRebuildMillis", 120_000);
+    private static final long MAX_SCAN_MILLIS = Long.getLong("scale.maxScanMillis", 5_000);
+    private static final long MAX_REQUEST_MILLIS = Long.getLong("scale.maxRequestMillis", 30_000);
+    private static final long MAX_BUILDS_LOADED = Long.getLong("scale.maxBuildsLoaded", 0);
+    private static final long MAX_PEAK_HEAP_MB = Long.getLong("scale.maxPeakHeapMegabytes", 2048);
+    private static final long MAX_RETAINED_GROWTH_MB = Long.getLong("scale.maxRetainedGrowthMegabytes", 256);
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private final List<FreeStyleProject> projects = new ArrayList<>();
+
+    private int author;
+
+    @WithTimeout(3600)
+    @Test
+    public void concurrentLoad() throws Exception {
+        j.jenkins.setNumExecutors(8);
+        createJobs();
+        for (int b = 0; b < BUILDS_PER_JOB; b++) {
+            build(projects);
+        }
+
+        long started = System.nanoTime();
+        PeopleIndex.get().rebuild();
+        long rebuildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        LOGGER.info(() -> "Rebuilt people index of " + JOBS * BUILDS_PER_JOB + " builds in " + rebuildMillis + "ms");
+        assertTrue("rebuild took " + rebuildMillis + "ms", rebuildMillis <= MAX_REBUILD_MILLIS);
+
+        purgeBuilds();
+        resetPeakHeap();
+        load();
+        long loaded = loadedBuilds();
+        assertTrue(loaded + " builds were loaded", loaded <= MAX_BUILDS_LOADED);
+        long peakHeap = peakHeapMegabytes();
+        LOGGER.info(() -> "Peak heap under load: " + peakHeap + "MB");
+        assertTrue("peak heap was " + peakHeap + "MB", peakHeap <= MAX_PEAK_HEAP_MB);
+        assertScansWithinBudget();
+
+        // new builds keep invalidating people, so that every round computes them again
+        long retained = retainedHeapMegabytes();
+        for (int round = 0; round < SOAK_ROUNDS; round++) {
+            build(projects.subList(0, Math.max(1, JOBS / 100)));
+            load();
+            assertScansWithinBudget();
+        }
+        long growth = retainedHeapMegabytes() - retained;
+        LOGGER.info(() -> "Retained heap grew by " + growth + "MB over " + SOAK_ROUNDS + " rounds");
+        assertTrue("retained heap grew by " + growth + "MB", growth <= MAX_RETAINED_GROWTH_MB);
+    }
+
+    /**
+     * Creates {@link #JOBS} jobs, most of them in folders, and a view of the first folder.
+     */
+    private void createJobs() throws Exception {
+        ListView view = new ListView("first", j.jenkins);
+        j.jenkins.addView(view);
+        MockFolder folder = null;
+        for (int i = 0; i < JOBS; i++) {
+            if (i % JOBS_PER_FOLDER == 0) {
+                folder = j.createFolder("folder" + i / JOBS_PER_FOLDER);
+                if (i == 0) {
+                    view.add(folder);
+                }
+            }
+            FreeStyleProject p = i % 10 == 0
+                    ? j.createFreeStyleProject("job" + i)
+                    : folder.createProject(FreeStyleProject.class, "job" + i);
+            p.setScm(new FakeChangeLogSCM());
+            projects.add(p);
+        }
+    }
+
+    /**
+     * Builds each of the specified jobs once, with {@link #CHANGES_PER_BUILD} changes by rotating authors.
+     */
+    private void build(List<FreeStyleProject> jobs) throws Exception {
+        List<Future<?>> builds = new ArrayList<>();
+        for (FreeStyleProject p : jobs) {
+            FakeChangeLogSCM scm = (FakeChangeLogSCM) p.getScm();
+            for (int c = 0; c < CHANGES_PER_BUILD; c++) {
+                scm.addChange().withAuthor("user" + author++ % USERS).withMsg("change " + c);
+            }
+            builds.add(p.scheduleBuild2(0));
+        }
+        for (Future<?> build : builds) {
+            build.get();
+        }
+    }
+
+    /**
+     * Drives {@link #CLIENTS} concurrent clients, each alternating page loads, paged results and API calls, and
+     * fails if any request fails or exceeds {@link #MAX_REQUEST_MILLIS}.
+     */
+    private void load() throws Exception {
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        AtomicLong slowest = new AtomicLong();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                int client = c;
+                done.add(clients.submit(() -> {
+                    try (JenkinsRule.WebClient wc = j.createWebClient()) {
+                        for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                            long started = System.nanoTime();
+                            request(wc, (client + r) % 4);
+                            slowest.accumulateAndGet(
+                                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), Math::max);
+                        }
+                    } catch (Throwable t) {
+                        errors.add(t);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : done) {
+                client.get();
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        if (!errors.isEmpty()) {
+            AssertionError failure = new AssertionError(errors.size() + " clients failed");
+            errors.forEach(failure::addSuppressed);
+            throw failure;
+        }
+        LOGGER.info(() -> "Slowest of " + CLIENTS * REQUESTS_PER_CLIENT + " requests: " + slowest.get() + "ms");
+        assertTrue("slowest request took " + slowest.get() + "ms", slowest.get() <= MAX_REQUEST_MILLIS);
+    }
+
+    private void request(JenkinsRule.WebClient wc, int kind) throws Exception {
+        switch (kind) {
+            case 0:
+                wc.goTo("asynchPeople/");
+                assertEquals(0, wc.waitForBackgroundJavaScript(MAX_REQUEST_MILLIS));
+                break;
+            case 1:
+                JSONObject page = JSONObject.fromObject(wc.goTo("asynchPeople/page?limit=50", "application/json")
+                        .getWebResponse()
+                        .getContentAsString());
+                assertEquals(50, page.getJSONArray("users").size());
+                break;
+            case 2:
+                JSONArray users = JSONObject.fromObject(
+                                wc.goTo("asynchPeople/api/json?tree=users[user[id],lastChange]", "application/json")
+                                        .getWebResponse()
+                                        .getContentAsString())
+                        .getJSONArray("users");
+                assertTrue(users.size() >= Math.min(USERS, JOBS * BUILDS_PER_JOB * CHANGES_PER_BUILD));
+                break;
+            default:
+                wc.goTo("view/first/asynchPeople/page?limit=50", "application/json");
+        }
+    }
+
+    /**
+     * Fails if a recent scan exceeded {@link #MAX_SCAN_MILLIS} or read builds although the index is ready.
+     */
+    private static void assertScansWithinBudget() {
+        JSONArray scans = ScanMetrics.toJSON().getJSONArray("recentScans");
+        for (int i = 0; i < scans.size(); i++) {
+            JSONObject scan = scans.getJSONObject(i);
+            assertTrue(scan.toString(), scan.getLong("durationMillis") <= MAX_SCAN_MILLIS);
+            assertEquals(scan.toString(), 0, scan.getLong("builds"));
+        }
+    }
+
+    /**
+     * Drops all builds from memory, so that {@link #loadedBuilds()} counts those loaded since.
+     */
+    private void purgeBuilds() {
+        for (FreeStyleProject p : projects) {
+            p._getRuns().purgeCache();
+        }
+    }
+
+    private long loadedBuilds() {
+        long loaded = 0;
+        for (FreeStyleProject p : projects) {
+            loaded += p._getRuns().getLoadedBuilds().size();
+        }
+        return loaded;
+    }
+
+    private static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeapMegabytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak >> 20;
+    }
+
+    private static long retainedHeapMegabytes() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import hudson.model.FreeStyleProject;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.Jenkins;
+import org.jvnet.hudson.test.FakeChangeLogSCM;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Scanning actual builds and their changelogs for authors, as done when rebuilding {@link PeopleIndex} and when
+ * computing people without it.
+ */
+@JmhBenchmark
+public class PeopleScanBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Builds extends JmhBenchmarkState {
+
+        @Param({"10", "100"})
+        public int jobs;
+
+        @Param({"10"})
+        public int buildsPerJob;
+
+        @Param({"100", "1000"})
+        public int users;
+
+        @Override
+        public void setup() throws Exception {
+            Jenkins jenkins = getJenkins();
+            int author = 0;
+            for (int i = 0; i < jobs; i++) {
+                FreeStyleProject p = jenkins.createProject(FreeStyleProject.class, "job" + i);
+                FakeChangeLogSCM scm = new FakeChangeLogSCM();
+                p.setScm(scm);
+                for (int b = 0; b < buildsPerJob; b++) {
+                    for (int c = 0; c < 3; c++) {
+                        scm.addChange().withAuthor("user" + author++ % users).withMsg("change " + c);
+                    }
+                    p.scheduleBuild2(0).get();
+                }
+            }
+        }
+    }
+
+    /** Loads all builds and parses their changelogs. */
+    @Benchmark
+    public void rebuildIndex(Builds state) {
+        PeopleIndex.get().rebuild();
+    }
+}
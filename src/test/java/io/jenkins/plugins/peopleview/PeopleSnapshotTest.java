@@ -0,0 +1,364 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import hudson.model.ListView;
+import hudson.model.User;
+import hudson.model.View;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.htmlunit.html.HtmlPage;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FakeChangeLogSCM;
+import org.jvnet.hudson.test.For;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+
+@For(PeopleSnapshot.class)
+public class PeopleSnapshotTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void sharedBetweenConcurrentRequests() throws Exception {
+        PeopleSnapshot first = PeopleSnapshot.attach(j.jenkins);
+        PeopleSnapshot second = PeopleSnapshot.attach(j.jenkins);
+        assertSame(first, second);
+        first.awaitAll();
+        first.detach();
+        second.detach();
+
+        // served from the finished snapshot until something changes
+        PeopleSnapshot later = PeopleSnapshot.attach(j.jenkins);
+        assertSame(first, later);
+        later.detach();
+        PeopleChanges.changed();
+        PeopleSnapshot changed = PeopleSnapshot.attach(j.jenkins);
+        assertNotSame(first, changed);
+        changed.detach();
+    }
+
+    @Test
+    public void inFlightScanAbsorbsRequestsDespiteChanges() throws Exception {
+        FreeStyleProject p = createProject("p", "alice");
+        long scans = ScanMetrics.toJSON().getLong("scans");
+        CountDownLatch release = new CountDownLatch(1);
+        ListView view = ScanSchedulerTest.blockedView(j, release);
+        PeopleSnapshot first = PeopleSnapshot.attach(view);
+        PeopleSnapshot second;
+        try {
+            long generation = PeopleChanges.generation();
+            p.getLastBuild().save();
+            assertEquals(generation, PeopleChanges.generation());
+            PeopleChanges.changed();
+            second = PeopleSnapshot.attach(view);
+        } finally {
+            release.countDown();
+        }
+        assertSame(first, second);
+        first.awaitAll();
+        first.detach();
+        second.detach();
+        assertEquals(scans + 1, ScanMetrics.toJSON().getLong("scans"));
+
+        // once complete, the change it started before makes it stale
+        PeopleSnapshot later = PeopleSnapshot.attach(view);
+        assertNotSame(first, later);
+        later.awaitAll();
+        later.detach();
+    }
+
+    @Test
+    public void hiddenJobsFilteredPerRequest() throws Exception {
+        FreeStyleProject visible = createProject("visible", "alice");
+        FreeStyleProject hidden = createProject("hidden", "mallory");
+        ListView view = new ListView("v", j.jenkins);
+        j.jenkins.addView(view);
+        view.add(visible);
+        view.add(hidden);
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        j.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.ADMINISTER)
+                .everywhere()
+                .to("admin")
+                .grant(Jenkins.READ, View.READ)
+                .everywhere()
+                .to("reader")
+                .grant(Item.READ)
+                .onItems(visible)
+                .to("reader"));
+        JenkinsRule.WebClient admin = j.createWebClient().login("admin");
+        JenkinsRule.WebClient reader = j.createWebClient().login("reader");
+
+        for (String path : List.of(
+                "view/v/asynchPeople/api/json?tree=users[user[id]]",
+                "view/v/asynchPeople/page",
+                "view/v/people/api/json?tree=users[user[id]]")) {
+            assertTrue(
+                    path,
+                    admin.goTo(path, "application/json")
+                            .getWebResponse()
+                            .getContentAsString()
+                            .contains("mallory"));
+            String people = reader.goTo(path, "application/json").getWebResponse().getContentAsString();
+            assertTrue(path, people.contains("alice"));
+            assertFalse(path, people.contains("mallory"));
+        }
+
+        HtmlPage page = reader.goTo("view/v/asynchPeople/");
+        assertEquals(0, reader.waitForBackgroundJavaScript(120000));
+        assertNotNull(page.getElementById("person-alice"));
+        assertNull(page.getElementById("person-mallory"));
+    }
+
+    @Test
+    public void stopsAtBuildLimit() throws Exception {
+        FreeStyleProject p = createProject("p", "alice");
+        j.buildAndAssertSuccess(p);
+        createProject("q", "bob");
+        abandonIndex();
+        PeopleViewConfiguration.get().setScanBuildLimit(1);
+
+        JSONObject page = JSONObject.fromObject(j.createWebClient()
+                .goTo("asynchPeople/page", "application/json")
+                .getWebResponse()
+                .getContentAsString());
+        assertTrue(page.getBoolean("partial"));
+        assertTrue(page.getDouble("coverage") < 1);
+        PeopleSnapshot snapshot = PeopleSnapshot.attach(j.jenkins);
+        assertEquals(PeopleSnapshot.Budget.BUILDS, snapshot.getExceeded());
+        snapshot.detach();
+    }
+
+    @Test
+    public void stopsAtEntryLimit() throws Exception {
+        createProject("p", "alice");
+        createProject("q", "bob");
+        abandonIndex();
+        PeopleViewConfiguration.get().setScanEntryLimit(1);
+
+        JSONObject people = JSONObject.fromObject(j.createWebClient()
+                .goTo("people/api/json?tree=partial,coverage", "application/json")
+                .getWebResponse()
+                .getContentAsString());
+        assertTrue(people.getBoolean("partial"));
+        assertTrue(people.getDouble("coverage") < 1);
+        PeopleSnapshot snapshot = PeopleSnapshot.attach(j.jenkins);
+        assertEquals(PeopleSnapshot.Budget.ENTRIES, snapshot.getExceeded());
+        snapshot.detach();
+
+        PeopleViewConfiguration.get().setScanEntryLimit(0);
+        people = JSONObject.fromObject(j.createWebClient()
+                .goTo("people/api/json?tree=partial,coverage", "application/json")
+                .getWebResponse()
+                .getContentAsString());
+        assertFalse(people.getBoolean("partial"));
+        assertEquals(1, people.getDouble("coverage"), 0);
+    }
+
+    @Test
+    public void parallelScanMatchesIndex() throws Exception {
+        ListView view = new ListView("v", j.jenkins);
+        j.jenkins.addView(view);
+        for (int i = 0; i < 6; i++) {
+            FreeStyleProject p = createProject("p" + i, "user" + i % 3);
+            ((FakeChangeLogSCM) p.getScm()).addChange().withAuthor("user" + (i + 1) % 3).withMsg("second");
+            j.buildAndAssertSuccess(p);
+            view.add(p);
+        }
+        abandonIndex();
+        PeopleViewConfiguration.get().setScanThreads(4);
+
+        Map<User, UserInfo> scanned = people(view);
+        PeopleIndex index = PeopleIndex.get();
+        index.rebuild();
+        Map<User, UserInfo> indexed = PeopleIndexTest.getUserInfo(index, view.getItems());
+        assertEquals(indexed.keySet(), scanned.keySet());
+        for (Map.Entry<User, UserInfo> expected : indexed.entrySet()) {
+            UserInfo actual = scanned.get(expected.getKey());
+            assertEquals(expected.getValue().getLastChangeMillis(), actual.getLastChangeMillis());
+            assertEquals(expected.getValue().getJob(), actual.getJob());
+        }
+    }
+
+    @Test
+    public void activityHorizonExcludesOldBuilds() throws Exception {
+        FreeStyleProject p = createProject("p", "old");
+        FreeStyleProject q = createProject("q", "new");
+        ListView view = new ListView("v", j.jenkins);
+        j.jenkins.addView(view);
+        view.add(p);
+        view.add(q);
+        // as if the build of p had run long ago
+        FreeStyleBuild old = p.getLastBuild();
+        long longAgo = old.getTimeInMillis() - TimeUnit.DAYS.toMillis(100);
+        BuildAuthors.write(old, new BuildAuthors(old.getNumber(), longAgo, List.of("old"), List.of()));
+        abandonIndex();
+        PeopleViewConfiguration.get().setActivityHorizonDays(30);
+        p._getRuns().purgeCache();
+
+        assertEquals(Set.of("new"), ids(people(view)));
+        assertFalse(p._getRuns().getLoadedBuilds().containsKey(old.getNumber()));
+        PeopleIndex index = PeopleIndex.get();
+        index.rebuild();
+        assertEquals(Set.of("new"), ids(PeopleIndexTest.getUserInfo(index, view.getItems())));
+
+        PeopleViewConfiguration.get().setActivityHorizonDays(0);
+        assertEquals(Set.of("old", "new"), ids(PeopleIndexTest.getUserInfo(index, view.getItems())));
+        abandonIndex();
+        assertEquals(Set.of("old", "new"), ids(people(view)));
+    }
+
+    @Test
+    public void activityHorizonStopsNewestFirstScan() throws Exception {
+        FreeStyleProject p = createProject("p", "old");
+        build(p, "old");
+        build(p, "alice");
+        build(p, "alice");
+        FreeStyleProject q = createProject("q", "bob");
+        ListView view = new ListView("v", j.jenkins);
+        j.jenkins.addView(view);
+        view.add(p);
+        view.add(q);
+        // as if the first builds of p had run long ago, the second one before the horizon, the third one after it
+        age(p.getBuildByNumber(1), 100);
+        age(p.getBuildByNumber(2), 50);
+        age(p.getBuildByNumber(3), 10);
+        long latest = p.getBuildByNumber(4).getTimeInMillis();
+        for (FreeStyleProject job : List.of(p, q)) {
+            for (int number : BuildAuthors.numbers(job)) {
+                assertTrue(new File(job.getBuildByNumber(number).getRootDir(), BuildAuthors.FILE_NAME).delete());
+            }
+            job._getRuns().purgeCache();
+        }
+        loseIndex();
+        PeopleViewConfiguration.get().setActivityHorizonDays(30);
+
+        Map<User, UserInfo> users = people(view);
+        assertEquals(Set.of("alice", "bob"), ids(users));
+        // the latest change of alice is from the newest build
+        assertEquals(latest, users.get(User.getById("alice", false)).getLastChangeMillis());
+        // the second build was loaded to find it is too old, but not the first one
+        assertFalse(p._getRuns().getLoadedBuilds().containsKey(1));
+    }
+
+    /**
+     * @return the people of the view, as collected for its remote API
+     */
+    private static Map<User, UserInfo> people(View view) {
+        Map<User, UserInfo> users = new HashMap<>();
+        for (UserInfo info : new People(view).users) {
+            users.put(info.getUser(), info);
+        }
+        return users;
+    }
+
+    private static Set<String> ids(Map<User, UserInfo> users) {
+        return users.keySet().stream().map(User::getId).collect(Collectors.toSet());
+    }
+
+    /**
+     * Makes scans read builds rather than the index, as while it is rebuilt after an upgrade.
+     * Some job must exist, so that the rebuild started here stops before completing.
+     */
+    private static void abandonIndex() throws InterruptedException {
+        PeopleIndex index = PeopleIndex.get();
+        while (!index.isReady()) {
+            // the rebuild at startup, which would otherwise complete after this one
+            Thread.sleep(100);
+        }
+        Thread.currentThread().interrupt();
+        index.rebuild();
+        assertTrue(Thread.interrupted());
+        assertFalse(index.isReady());
+    }
+
+    /**
+     * Makes scans read builds newest first, as when the index was lost, before author files are written.
+     */
+    private void loseIndex() throws Exception {
+        PeopleIndex index = PeopleIndex.get();
+        while (!index.isReady()) {
+            Thread.sleep(100);
+        }
+        Files.writeString(new File(j.jenkins.getRootDir(), PeopleIndex.class.getName() + ".bin").toPath(), "lost");
+        index.load();
+        assertFalse(index.isReady());
+        assertFalse(index.isBackfilled());
+    }
+
+    /**
+     * Moves the timestamp of a build the specified number of days back, as seen once it is loaded again.
+     */
+    private static void age(FreeStyleBuild build, int days) throws Exception {
+        Path xml = new File(build.getRootDir(), "build.xml").toPath();
+        String timestamp = "<timestamp>" + (build.getTimeInMillis() - TimeUnit.DAYS.toMillis(days)) + "</timestamp>";
+        Files.writeString(xml, Files.readString(xml).replaceFirst("<timestamp>\\d+</timestamp>", timestamp));
+    }
+
+    /**
+     * Builds the job with a change by the specified author.
+     */
+    private void build(FreeStyleProject p, String author) throws Exception {
+        FakeChangeLogSCM scm = new FakeChangeLogSCM();
+        scm.addChange().withAuthor(author).withMsg("next");
+        p.setScm(scm);
+        j.buildAndAssertSuccess(p);
+    }
+
+    /**
+     * Creates a job with one build with a change by the specified author.
+     */
+    private FreeStyleProject createProject(String name, String author) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject(name);
+        FakeChangeLogSCM scm = new FakeChangeLogSCM();
+        scm.addChange().withAuthor(author).withMsg("first");
+        p.setScm(scm);
+        j.buildAndAssertSuccess(p);
+        return p;
+    }
+}
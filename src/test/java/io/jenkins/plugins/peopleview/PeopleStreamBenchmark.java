@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import hudson.model.User;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput of the thread merging people into a {@link PeopleStream}, alone and while several clients poll it for
+ * deltas, to make sure polling does not slow the scan down.
+ */
+@JmhBenchmark
+public class PeopleStreamBenchmark {
+
+    @State(Scope.Group)
+    public static class Stream extends JmhBenchmarkState {
+
+        @Param({"1000", "100000"})
+        public int users;
+
+        PeopleStream stream;
+
+        List<User> people;
+
+        final AtomicLong clock = new AtomicLong();
+
+        @Override
+        public void setup() throws Exception {
+            stream = PeopleStream.open("benchmark" + System.nanoTime());
+            people = new ArrayList<>();
+            for (int u = 0; u < users; u++) {
+                User user = User.getById("user" + u, true);
+                people.add(user);
+                stream.add(new UserInfo(user, "job", 0));
+            }
+        }
+    }
+
+    /** Records a later change of a random user, as the scan does for each changelog entry. */
+    private static void scan(Stream state) {
+        User user = state.people.get(ThreadLocalRandom.current().nextInt(state.people.size()));
+        state.stream.update(user, "job", state.clock.incrementAndGet());
+    }
+
+    /** Fetches what changed since the previous poll, as a client does. */
+    private static long poll(Stream state, long since) throws Exception {
+        state.stream.writeDelta(since, Writer.nullWriter());
+        return state.stream.getSeq();
+    }
+
+    @Benchmark
+    @Group("scanAlone")
+    public void scanAlone(Stream state) {
+        scan(state);
+    }
+
+    @Benchmark
+    @Group("scanWithPollers")
+    @GroupThreads(1)
+    public void scanWhilePolled(Stream state) {
+        scan(state);
+    }
+
+    @Benchmark
+    @Group("scanWithPollers")
+    @GroupThreads(4)
+    public long pollWhileScanning(Stream state) throws Exception {
+        return poll(state, Math.max(0, state.stream.getSeq() - 100));
+    }
+}
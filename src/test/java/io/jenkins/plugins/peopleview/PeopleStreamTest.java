@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import hudson.model.User;
+import java.io.StringWriter;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.For;
+import org.jvnet.hudson.test.JenkinsRule;
+
+@For(PeopleStream.class)
+public class PeopleStreamTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private static JSONObject delta(PeopleStream stream, long since) throws Exception {
+        StringWriter w = new StringWriter();
+        stream.writeDelta(since, w);
+        return JSONObject.fromObject(w.toString());
+    }
+
+    @Test
+    public void deliversChangesSinceSequenceNumber() throws Exception {
+        PeopleStream stream = PeopleStream.open("test");
+        User alice = User.getById("alice", true);
+        stream.add(new UserInfo(alice));
+        stream.add(new UserInfo(User.getById("bob", true)));
+
+        JSONObject all = delta(stream, 0);
+        assertEquals(2, all.getLong("seq"));
+        assertFalse(all.getBoolean("reset"));
+        assertEquals(2, all.getJSONArray("entries").size());
+
+        stream.update(alice, "p", 1000);
+        stream.update(alice, "p", 2000);
+        JSONArray changed = delta(stream, 2).getJSONArray("entries");
+        assertEquals(1, changed.size());
+        assertEquals("alice", changed.getJSONObject(0).getString("id"));
+
+        JSONObject unknown = delta(stream, 100);
+        assertTrue(unknown.getBoolean("reset"));
+        assertEquals(2, unknown.getJSONArray("entries").size());
+    }
+
+    @Test
+    public void resumesUntilComplete() throws Exception {
+        PeopleStream stream = PeopleStream.open("test");
+        assertSame(stream, PeopleStream.open("test"));
+        assertSame(stream, PeopleStream.get(stream.getId()));
+        assertNotSame(stream, PeopleStream.open("other"));
+
+        PeopleViewConfiguration.get().setSnapshotTtlSeconds(0);
+        stream.complete();
+        Thread.sleep(10);
+        assertNotSame(stream, PeopleStream.open("test"));
+    }
+}
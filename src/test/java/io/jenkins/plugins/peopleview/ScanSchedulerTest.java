@@ -0,0 +1,97 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import hudson.model.ListView;
+import hudson.model.TopLevelItem;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.For;
+import org.jvnet.hudson.test.JenkinsRule;
+
+@For(ScanScheduler.class)
+public class ScanSchedulerTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void queuesThenRejects() throws Exception {
+        j.jenkins.addView(new ListView("v", j.jenkins));
+        PeopleViewConfiguration config = PeopleViewConfiguration.get();
+        config.setMaxConcurrentScans(1);
+        config.setMaxQueuedScans(1);
+
+        CountDownLatch release = new CountDownLatch(1);
+        PeopleSnapshot running = PeopleSnapshot.attach(blockedView(j, release));
+        PeopleSnapshot queued = PeopleSnapshot.attach(j.jenkins);
+        try {
+            assertEquals(1, queued.getQueuePosition());
+
+            JenkinsRule.WebClient wc = j.createWebClient().withThrowExceptionOnFailingStatusCode(false);
+            WebResponse rsp = wc.getPage(new WebRequest(new URL(j.getURL(), "view/v/asynchPeople/page")))
+                    .getWebResponse();
+            assertEquals(503, rsp.getStatusCode());
+            assertEquals(
+                    Integer.toString(ScanScheduler.RETRY_AFTER_SECONDS), rsp.getResponseHeaderValue("Retry-After"));
+            PeopleSnapshot rejected = PeopleSnapshot.attach(new ListView("w", j.jenkins));
+            assertTrue(rejected.isRejected());
+            rejected.detach();
+        } finally {
+            release.countDown();
+        }
+
+        // the queued scan starts once the running one is done
+        running.awaitAll();
+        queued.awaitAll();
+        assertEquals(0, queued.getQueuePosition());
+        running.detach();
+        queued.detach();
+    }
+
+    /**
+     * @return a view whose scan holds its slot until the latch is released
+     */
+    static ListView blockedView(JenkinsRule j, CountDownLatch release) {
+        return new ListView("blocked", j.jenkins) {
+            @Override
+            public List<TopLevelItem> getItems() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getItems();
+            }
+        };
+    }
+}
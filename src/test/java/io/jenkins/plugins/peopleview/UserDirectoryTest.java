@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024, Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.peopleview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import hudson.model.User;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.For;
+import org.jvnet.hudson.test.JenkinsRule;
+
+@For(UserDirectory.class)
+public class UserDirectoryTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void readsIdsOneByOne() throws Exception {
+        File index = tmp.newFile(UserDirectory.INDEX_FILE);
+        Files.writeString(
+                index.toPath(),
+                "<?xml version='1.1' encoding='UTF-8'?>\n"
+                        + "<hudson.model.UserIdMapper>\n"
+                        + "  <version>1</version>\n"
+                        + "  <idToDirectoryNameMap class=\"concurrent-hash-map\">\n"
+                        + "    <entry>\n"
+                        + "      <string>alice</string>\n"
+                        + "      <string>alice_1</string>\n"
+                        + "    </entry>\n"
+                        + "    <entry>\n"
+                        + "      <string>bob</string>\n"
+                        + "      <string>bob_2</string>\n"
+                        + "    </entry>\n"
+                        + "  </idToDirectoryNameMap>\n"
+                        + "</hudson.model.UserIdMapper>\n",
+                StandardCharsets.UTF_8);
+
+        List<String> ids = new ArrayList<>();
+        assertTrue(UserDirectory.forEachId(index, ids::add));
+        assertEquals(List.of("alice", "bob"), ids);
+
+        ids.clear();
+        assertFalse(UserDirectory.forEachId(index, id -> ids.add(id) && false));
+        assertEquals(List.of("alice"), ids);
+    }
+
+    @Test
+    public void enumeratesSavedUsersLazily() throws Exception {
+        User.getById("alice", true).setFullName("Alice Smith");
+        User.getById("bob", true).setFullName("Robert Smithson");
+        PeopleViewConfiguration.get().setLazyUserEnumeration(true);
+
+        Set<String> ids = new HashSet<>();
+        assertTrue(UserDirectory.forEachUser(u -> ids.add(u.getId())));
+        assertEquals(Set.of("alice", "bob"), ids);
+    }
+}